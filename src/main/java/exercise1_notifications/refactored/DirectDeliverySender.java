@@ -0,0 +1,6 @@
+package exercise1_notifications.refactored;
+
+public interface DirectDeliverySender extends NotificationSender {
+
+    NotificationResult deliver(String recipient, String formattedMessage);
+}
@@ -1,6 +1,47 @@
 package exercise1_notifications.refactored;
 
-public class EmailNotificationSender implements NotificationSender {
+import exercise1_notifications.refactored.template.Escapers;
+import exercise1_notifications.refactored.template.MessageTemplate;
+import exercise1_notifications.refactored.transport.DeliveryReport;
+import exercise1_notifications.refactored.transport.MailMessage;
+import exercise1_notifications.refactored.transport.MailTransport;
+import exercise1_notifications.refactored.validation.RecipientValidator;
+import exercise1_notifications.refactored.validation.RecipientValidators;
+
+import java.io.IOException;
+import java.util.List;
+
+public class EmailNotificationSender implements DirectDeliverySender {
+    public static final MessageTemplate DEFAULT_TEMPLATE = MessageTemplate.compile(
+            "<html><body><h1>Notification</h1><p>{{message}}</p></body></html>", Escapers.HTML);
+    private static final ResultRenderer SENT =
+            (recipient, formatted) -> "email to " + recipient + " : " + formatted + " sent";
+
+    private final RecipientValidator recipientValidator;
+    private final MessageTemplate messageTemplate;
+    private final MailTransport transport;
+    private final String senderAddress;
+
+    public EmailNotificationSender() {
+        this(RecipientValidators.EMAIL);
+    }
+
+    public EmailNotificationSender(RecipientValidator recipientValidator) {
+        this(recipientValidator, DEFAULT_TEMPLATE);
+    }
+
+    public EmailNotificationSender(RecipientValidator recipientValidator, MessageTemplate messageTemplate) {
+        this(recipientValidator, messageTemplate, null, null);
+    }
+
+    public EmailNotificationSender(RecipientValidator recipientValidator, MessageTemplate messageTemplate,
+                                   MailTransport transport, String senderAddress) {
+        this.recipientValidator = recipientValidator;
+        this.messageTemplate = messageTemplate;
+        this.transport = transport;
+        this.senderAddress = senderAddress;
+    }
+
     @Override
     public String getType() {
         return "EMAIL";
@@ -9,20 +50,50 @@ public class EmailNotificationSender implements NotificationSender {
     @Override
     public NotificationResult send(String recipient, String message) {
         if(!validateRecipient(recipient)){
-            return NotificationResult.failure("invalid");
+            return NotificationResult.INVALID_RECIPIENT;
         }
         String messageFormatted = formatMessage(message);
 
-        return NotificationResult.success("email to " + recipient + " : " + messageFormatted + " sent" );
+        return deliver(recipient, messageFormatted);
+    }
+
+    @Override
+    public NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        if(!validateRecipient(recipient)){
+            return NotificationResult.INVALID_RECIPIENT;
+        }
+        return deliver(recipient, formattedMessage);
     }
 
     @Override
     public boolean validateRecipient(String recipient) {
-        return (recipient != null && recipient.contains("@"));
+        return recipientValidator.isValid(recipient);
     }
 
     @Override
     public String formatMessage(String message) {
-        return "<html><body><h1>Notification</h1><p>" + message + "</p></body></html>";
+        return messageTemplate.render(message);
+    }
+
+    @Override
+    public NotificationResult deliver(String recipient, String messageFormatted) {
+        if (transport == null) {
+            return NotificationResult.success(SENT, recipient, messageFormatted);
+        }
+        try {
+            DeliveryReport report = transport.deliver(new MailMessage(senderAddress, List.of(recipient),
+                    messageFormatted));
+            if (report.isAccepted(recipient)) {
+                return NotificationResult.success(SENT, recipient, messageFormatted);
+            }
+            String rejection = report.getRejectedRecipients().get(recipient);
+            return rejection != null
+                    ? NotificationResult.rejected("invalid recipient: " + rejection)
+                    : NotificationResult.failure("transport rejected: " + report.getReply());
+        } catch (IllegalArgumentException e) {
+            return NotificationResult.rejected("invalid recipient: " + e.getMessage());
+        } catch (IOException e) {
+            return NotificationResult.failure("transport error: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,30 @@
+package exercise1_notifications.refactored;
+
+public class NotificationRequest {
+
+    private final String notificationType;
+    private final String recipient;
+    private final String message;
+
+    public NotificationRequest(String notificationType, String recipient, String message) {
+        this.notificationType = notificationType;
+        this.recipient = recipient;
+        this.message = message;
+    }
+
+    public static NotificationRequest of(String notificationType, String recipient, String message) {
+        return new NotificationRequest(notificationType, recipient, message);
+    }
+
+    public String getNotificationType() {
+        return notificationType;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
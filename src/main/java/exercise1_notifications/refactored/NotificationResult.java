@@ -1,26 +1,64 @@
 package exercise1_notifications.refactored;
 
 public class NotificationResult {
+    public static final NotificationResult INVALID_RECIPIENT = rejected("invalid recipient");
+    public static final NotificationResult UNKNOWN = rejected("unknown");
 
     private final boolean success;
-    private  final String message;
+    private final boolean permanent;
+    private final ResultRenderer renderer;
+    private final String first;
+    private final String second;
+    private volatile String message;
 
     public NotificationResult(boolean success, String message) {
+        this(success, false, message);
+    }
+
+    private NotificationResult(boolean success, boolean permanent, String message) {
         this.success = success;
+        this.permanent = permanent;
         this.message = message;
+        this.renderer = null;
+        this.first = null;
+        this.second = null;
+    }
+
+    private NotificationResult(boolean success, ResultRenderer renderer, String first, String second) {
+        this.success = success;
+        this.permanent = false;
+        this.renderer = renderer;
+        this.first = first;
+        this.second = second;
     }
+
     public static NotificationResult success(String message){
     return  new NotificationResult(true,message);
     }
+    public static NotificationResult success(ResultRenderer renderer, String first, String second) {
+        return new NotificationResult(true, renderer, first, second);
+    }
     public static NotificationResult failure(String message){
         return  new NotificationResult(false,message);
     }
+    public static NotificationResult rejected(String message) {
+        return new NotificationResult(false, true, message);
+    }
 
     public boolean isSuccess() {
         return success;
     }
 
+    public boolean isPermanentFailure() {
+        return permanent;
+    }
+
     public String getMessage() {
-        return message;
+        String rendered = message;
+        if (rendered == null && renderer != null) {
+            rendered = renderer.render(first, second);
+            message = rendered;
+        }
+        return rendered;
     }
 }
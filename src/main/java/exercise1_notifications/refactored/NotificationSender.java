@@ -6,4 +6,8 @@ public interface NotificationSender {
     NotificationResult send(String recipient,String message);
     boolean validateRecipient(String recipient);
     String formatMessage(String message);
+
+    default NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        return send(recipient, message);
+    }
 }
@@ -1,6 +1,42 @@
 package exercise1_notifications.refactored;
 
-public class PushNotificationSender implements NotificationSender {
+import exercise1_notifications.refactored.push.PushMulticastBatcher;
+import exercise1_notifications.refactored.push.PushTokenOutcome;
+import exercise1_notifications.refactored.template.Escapers;
+import exercise1_notifications.refactored.template.MessageTemplate;
+import exercise1_notifications.refactored.validation.RecipientValidator;
+import exercise1_notifications.refactored.validation.RecipientValidators;
+
+import java.util.concurrent.CompletableFuture;
+
+public class PushNotificationSender implements DirectDeliverySender {
+    public static final MessageTemplate DEFAULT_TEMPLATE = MessageTemplate.compile("{{message}}", Escapers.NONE, 100);
+    private static final ResultRenderer SENT =
+            (recipient, formatted) -> "push to device " + recipient + ": " + formatted + " sent";
+
+    private final RecipientValidator recipientValidator;
+    private final MessageTemplate messageTemplate;
+    private final PushMulticastBatcher batcher;
+
+    public PushNotificationSender() {
+        this(RecipientValidators.DEVICE_TOKEN);
+    }
+
+    public PushNotificationSender(RecipientValidator recipientValidator) {
+        this(recipientValidator, DEFAULT_TEMPLATE);
+    }
+
+    public PushNotificationSender(RecipientValidator recipientValidator, MessageTemplate messageTemplate) {
+        this(recipientValidator, messageTemplate, null);
+    }
+
+    public PushNotificationSender(RecipientValidator recipientValidator, MessageTemplate messageTemplate,
+                                  PushMulticastBatcher batcher) {
+        this.recipientValidator = recipientValidator;
+        this.messageTemplate = messageTemplate;
+        this.batcher = batcher;
+    }
+
     @Override
     public String getType() {
         return "PUSH";
@@ -9,24 +45,68 @@ public class PushNotificationSender implements NotificationSender {
     @Override
     public NotificationResult send(String recipient, String message) {
         if (!validateRecipient(recipient)){
-            return NotificationResult.failure("invalid recipient");
+            return NotificationResult.INVALID_RECIPIENT;
         }
         String formattedMessage = formatMessage(message);
 
-        return NotificationResult.success("push to device "+ recipient+ ": "+
-                formattedMessage + " sent");
+        return deliver(recipient, formattedMessage);
+    }
+
+    @Override
+    public NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        if (!validateRecipient(recipient)){
+            return NotificationResult.INVALID_RECIPIENT;
+        }
+        return deliver(recipient, formattedMessage);
+    }
+
+    public CompletableFuture<NotificationResult> sendAsync(String recipient, String message) {
+        if (!validateRecipient(recipient)) {
+            return CompletableFuture.completedFuture(NotificationResult.INVALID_RECIPIENT);
+        }
+        return deliverAsync(recipient, formatMessage(message));
+    }
+
+    public CompletableFuture<NotificationResult> sendFormattedAsync(String recipient, String message,
+                                                                    String formattedMessage) {
+        if (!validateRecipient(recipient)) {
+            return CompletableFuture.completedFuture(NotificationResult.INVALID_RECIPIENT);
+        }
+        return deliverAsync(recipient, formattedMessage);
     }
 
     @Override
     public boolean validateRecipient(String recipient) {
-        return !(recipient.length() <10);
+        return recipientValidator.isValid(recipient);
     }
 
     @Override
     public String formatMessage(String message) {
-        if (message.length() > 100) {
-            return message.substring(0, 97) + "...";
+        return messageTemplate.render(message);
+    }
+
+    @Override
+    public NotificationResult deliver(String recipient, String formattedMessage) {
+        if (batcher == null) {
+            return NotificationResult.success(SENT, recipient, formattedMessage);
+        }
+        return toResult(recipient, formattedMessage, batcher.sendNow(recipient, formattedMessage));
+    }
+
+    private CompletableFuture<NotificationResult> deliverAsync(String recipient, String formattedMessage) {
+        if (batcher == null) {
+            return CompletableFuture.completedFuture(NotificationResult.success(SENT, recipient, formattedMessage));
+        }
+        return batcher.submit(recipient, formattedMessage)
+                .thenApply(outcome -> toResult(recipient, formattedMessage, outcome));
+    }
+
+    private static NotificationResult toResult(String recipient, String formattedMessage, PushTokenOutcome outcome) {
+        if (outcome.isDelivered()) {
+            return NotificationResult.success(SENT, recipient, formattedMessage);
         }
-        return message;
+        return outcome.isPermanent()
+                ? NotificationResult.rejected("invalid recipient: " + outcome.getReason())
+                : NotificationResult.failure("push failed: " + outcome.getReason());
     }
 }
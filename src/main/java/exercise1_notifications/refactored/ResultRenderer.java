@@ -0,0 +1,6 @@
+package exercise1_notifications.refactored;
+
+@FunctionalInterface
+public interface ResultRenderer {
+    String render(String first, String second);
+}
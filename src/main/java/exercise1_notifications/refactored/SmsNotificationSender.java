@@ -1,6 +1,31 @@
 package exercise1_notifications.refactored;
 
-public class SmsNotificationSender implements NotificationSender {
+import exercise1_notifications.refactored.template.Escapers;
+import exercise1_notifications.refactored.template.MessageTemplate;
+import exercise1_notifications.refactored.validation.RecipientValidator;
+import exercise1_notifications.refactored.validation.RecipientValidators;
+
+public class SmsNotificationSender implements DirectDeliverySender {
+    public static final MessageTemplate DEFAULT_TEMPLATE = MessageTemplate.compile("{{message}}", Escapers.NONE, 160);
+    private static final ResultRenderer SENT =
+            (recipient, formatted) -> "sms to " + recipient + ": " + formatted + " sent!";
+
+    private final RecipientValidator recipientValidator;
+    private final MessageTemplate messageTemplate;
+
+    public SmsNotificationSender() {
+        this(RecipientValidators.E164_PHONE);
+    }
+
+    public SmsNotificationSender(RecipientValidator recipientValidator) {
+        this(recipientValidator, DEFAULT_TEMPLATE);
+    }
+
+    public SmsNotificationSender(RecipientValidator recipientValidator, MessageTemplate messageTemplate) {
+        this.recipientValidator = recipientValidator;
+        this.messageTemplate = messageTemplate;
+    }
+
     @Override
     public String getType() {
         return "SMS";
@@ -9,24 +34,33 @@ public class SmsNotificationSender implements NotificationSender {
     @Override
     public NotificationResult send(String recipient, String message) {
         if(!validateRecipient(recipient)){
-            return NotificationResult.failure("invalid recipient");
+            return NotificationResult.INVALID_RECIPIENT;
         }
 
         String formatedMessage = formatMessage(message);
-        return NotificationResult.success("sms to " + recipient +
-                ": "+ formatedMessage + " sent!");
+        return deliver(recipient, formatedMessage);
+    }
+
+    @Override
+    public NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        if(!validateRecipient(recipient)){
+            return NotificationResult.INVALID_RECIPIENT;
+        }
+        return deliver(recipient, formattedMessage);
     }
 
     @Override
     public boolean validateRecipient(String recipient) {
-        return recipient.matches("\\+?\\d{10,15}");
+        return recipientValidator.isValid(recipient);
     }
 
     @Override
     public String formatMessage(String message) {
-        if (message.length() > 160) {
-            return message.substring(0, 157) + "...";
-        }
-        return message;
+        return messageTemplate.render(message);
+    }
+
+    @Override
+    public NotificationResult deliver(String recipient, String formatedMessage) {
+        return NotificationResult.success(SENT, recipient, formatedMessage);
     }
 }
@@ -0,0 +1,58 @@
+package exercise1_notifications.refactored.bulk;
+
+import java.util.Map;
+
+public class BulkRecord {
+    public static final String TYPE_FIELD = "type";
+    public static final String RECIPIENT_FIELD = "recipient";
+    public static final String MESSAGE_FIELD = "message";
+
+    private final long lineNumber;
+    private final Map<String, String> fields;
+    private final String error;
+
+    private BulkRecord(long lineNumber, Map<String, String> fields, String error) {
+        this.lineNumber = lineNumber;
+        this.fields = fields;
+        this.error = error;
+    }
+
+    static BulkRecord parsed(long lineNumber, Map<String, String> fields) {
+        if (isBlank(fields.get(TYPE_FIELD)) || isBlank(fields.get(RECIPIENT_FIELD))) {
+            return malformed(lineNumber, "missing type or recipient");
+        }
+        return new BulkRecord(lineNumber, fields, null);
+    }
+
+    static BulkRecord malformed(long lineNumber, String error) {
+        return new BulkRecord(lineNumber, Map.of(), error);
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public String getNotificationType() {
+        return fields.get(TYPE_FIELD);
+    }
+
+    public String getRecipient() {
+        return fields.get(RECIPIENT_FIELD);
+    }
+
+    public boolean isMalformed() {
+        return error != null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
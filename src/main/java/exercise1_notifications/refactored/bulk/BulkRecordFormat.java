@@ -0,0 +1,6 @@
+package exercise1_notifications.refactored.bulk;
+
+public enum BulkRecordFormat {
+    CSV,
+    JSON_LINES
+}
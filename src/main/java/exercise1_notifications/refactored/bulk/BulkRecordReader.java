@@ -0,0 +1,284 @@
+package exercise1_notifications.refactored.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkRecordReader implements Closeable {
+    public static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final BulkRecordFormat format;
+    private final Reader reader;
+    private final char[] buffer;
+    private final int maxLineLength;
+    private final StringBuilder lineBuffer;
+    private int bufferPosition;
+    private int bufferLimit;
+    private boolean skipLineFeed;
+    private boolean lineTooLong;
+    private String[] header;
+    private long lineNumber;
+
+    public BulkRecordReader(Path path, BulkRecordFormat format) throws IOException {
+        this(path, format, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public BulkRecordReader(Path path, BulkRecordFormat format, int bufferSize) throws IOException {
+        this(path, format, bufferSize, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public BulkRecordReader(Path path, BulkRecordFormat format, int bufferSize, int maxLineLength)
+            throws IOException {
+        if (maxLineLength <= 0) throw new IllegalArgumentException("Max line length must be positive");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE), bufferSize);
+            this.buffer = new char[bufferSize];
+        } catch (RuntimeException | Error e) {
+            channel.close();
+            throw e;
+        }
+        this.format = format;
+        this.maxLineLength = maxLineLength;
+        this.lineBuffer = new StringBuilder();
+    }
+
+    public BulkRecord next() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            lineNumber++;
+            if (lineTooLong) {
+                return BulkRecord.malformed(lineNumber, "line exceeds " + maxLineLength + " characters");
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == BulkRecordFormat.JSON_LINES) {
+                return parseJsonLine(line);
+            }
+            if (header == null) {
+                header = splitCsv(line).toArray(new String[0]);
+                continue;
+            }
+            return parseCsvLine(line);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() throws IOException {
+        lineBuffer.setLength(0);
+        lineTooLong = false;
+        boolean started = false;
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                bufferPosition = 0;
+                if (bufferLimit == 0) {
+                    return started ? lineBuffer.toString() : null;
+                }
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[bufferPosition] == '\n') {
+                    bufferPosition++;
+                    continue;
+                }
+            }
+            started = true;
+            int start = bufferPosition;
+            while (bufferPosition < bufferLimit && buffer[bufferPosition] != '\n'
+                    && buffer[bufferPosition] != '\r') {
+                bufferPosition++;
+            }
+            int length = Math.min(bufferPosition - start, maxLineLength - lineBuffer.length());
+            if (length < bufferPosition - start) {
+                lineTooLong = true;
+            }
+            if (length > 0) {
+                lineBuffer.append(buffer, start, length);
+            }
+            if (bufferPosition < bufferLimit) {
+                skipLineFeed = buffer[bufferPosition] == '\r';
+                bufferPosition++;
+                return lineTooLong ? "" : lineBuffer.toString();
+            }
+        }
+    }
+
+    private BulkRecord parseCsvLine(String line) {
+        List<String> values = splitCsv(line);
+        if (values == null || values.size() != header.length) {
+            return BulkRecord.malformed(lineNumber, "expected " + header.length + " columns");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            fields.put(header[i], values.get(i));
+        }
+        return BulkRecord.parsed(lineNumber, fields);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+
+    private BulkRecord parseJsonLine(String line) {
+        Map<String, String> fields = new HashMap<>();
+        int[] position = {skipWhitespace(line, 0)};
+        if (!expect(line, position, '{')) {
+            return BulkRecord.malformed(lineNumber, "expected a JSON object");
+        }
+        if (expect(line, position, '}')) {
+            return BulkRecord.parsed(lineNumber, fields);
+        }
+        do {
+            String key = readString(line, position);
+            if (key == null || !expect(line, position, ':')) {
+                return BulkRecord.malformed(lineNumber, "invalid JSON field");
+            }
+            String value = readValue(line, position);
+            if (value == null) {
+                return BulkRecord.malformed(lineNumber, "unsupported JSON value for " + key);
+            }
+            fields.put(key, value);
+        } while (expect(line, position, ','));
+        if (!expect(line, position, '}') || position[0] != line.length()) {
+            return BulkRecord.malformed(lineNumber, "unterminated JSON object");
+        }
+        return BulkRecord.parsed(lineNumber, fields);
+    }
+
+    private static String readValue(String line, int[] position) {
+        if (position[0] < line.length() && line.charAt(position[0]) == '"') {
+            return readString(line, position);
+        }
+        int start = position[0];
+        int end = start;
+        while (end < line.length() && ",} \t".indexOf(line.charAt(end)) < 0) {
+            end++;
+        }
+        String literal = line.substring(start, end);
+        if (!literal.equals("null") && !literal.equals("true") && !literal.equals("false") && !isNumber(literal)) {
+            return null;
+        }
+        position[0] = skipWhitespace(line, end);
+        return literal.equals("null") ? "" : literal;
+    }
+
+    private static boolean isNumber(String literal) {
+        int i = literal.startsWith("-") ? 1 : 0;
+        if (i >= literal.length() || literal.charAt(i) < '0' || literal.charAt(i) > '9') {
+            return false;
+        }
+        for (i++; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != 'e' && c != 'E' && c != '+' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(String line, int[] position) {
+        int i = position[0];
+        if (i >= line.length() || line.charAt(i) != '"') {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for (i++; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                position[0] = skipWhitespace(line, i + 1);
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (++i >= line.length()) {
+                return null;
+            }
+            char escaped = line.charAt(i);
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= line.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+        return null;
+    }
+
+    private static boolean expect(String line, int[] position, char expected) {
+        if (position[0] < line.length() && line.charAt(position[0]) == expected) {
+            position[0] = skipWhitespace(line, position[0] + 1);
+            return true;
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,150 @@
+package exercise1_notifications.refactored.bulk;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+import exercise1_notifications.refactored.template.MessageTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BulkSendPipeline {
+    private static final String RESULT_HEADER = "line,type,recipient,status,detail";
+
+    private final NotificationDispatcher dispatcher;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    public BulkSendPipeline(NotificationDispatcher dispatcher, Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Max in-flight must be positive");
+        this.dispatcher = dispatcher;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public BulkSendReport run(Path input, BulkRecordFormat format, Path resultFile) throws IOException {
+        return run(input, format, null, resultFile);
+    }
+
+    public BulkSendReport run(Path input, BulkRecordFormat format, MessageTemplate template, Path resultFile)
+            throws IOException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LongAdder sent = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder malformed = new LongAdder();
+        try (BulkRecordReader reader = new BulkRecordReader(input, format);
+             FileChannel channel = FileChannel.open(resultFile, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                     64 * 1024))) {
+            ResultWriter results = new ResultWriter(writer);
+            results.write(RESULT_HEADER);
+            try {
+                BulkRecord record;
+                while ((record = reader.next()) != null) {
+                    if (record.isMalformed()) {
+                        malformed.increment();
+                        results.write(record, "MALFORMED", record.getError());
+                        continue;
+                    }
+                    acquire(inFlight, 1);
+                    BulkRecord submitted = record;
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                NotificationResult result = send(submitted, template);
+                                (result.isSuccess() ? sent : failed).increment();
+                                results.write(submitted, result.isSuccess() ? "SENT" : "FAILED", result.getMessage());
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        inFlight.release();
+                        failed.increment();
+                        results.write(submitted, "FAILED", "rejected");
+                    }
+                }
+            } finally {
+                inFlight.acquireUninterruptibly(maxInFlight);
+            }
+            results.rethrow();
+        }
+        return new BulkSendReport(sent.sum(), failed.sum(), malformed.sum());
+    }
+
+    private NotificationResult send(BulkRecord record, MessageTemplate template) {
+        try {
+            String message = template == null
+                    ? record.getFields().getOrDefault(BulkRecord.MESSAGE_FIELD, "")
+                    : template.render(record.getFields());
+            NotificationResult result = dispatcher.sendNotification(record.getNotificationType(),
+                    record.getRecipient(), message);
+            return result == null ? NotificationResult.UNKNOWN : result;
+        } catch (RuntimeException e) {
+            return NotificationResult.UNKNOWN;
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) throws InterruptedIOException {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for in-flight notifications");
+        }
+    }
+
+    private static final class ResultWriter {
+        private final Writer writer;
+        private IOException failure;
+
+        private ResultWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        private void write(BulkRecord record, String status, String detail) {
+            write(record.getLineNumber() + "," + escape(record.getNotificationType()) + ","
+                    + escape(record.getRecipient()) + "," + status + "," + escape(detail));
+        }
+
+        private synchronized void write(String line) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                writer.write(line);
+                writer.write('\n');
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private synchronized void rethrow() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"").replace("\r", "\\r").replace("\n", "\\n") + '"';
+        }
+    }
+}
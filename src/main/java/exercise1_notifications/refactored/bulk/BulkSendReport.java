@@ -0,0 +1,29 @@
+package exercise1_notifications.refactored.bulk;
+
+public class BulkSendReport {
+    private final long sentCount;
+    private final long failedCount;
+    private final long malformedCount;
+
+    public BulkSendReport(long sentCount, long failedCount, long malformedCount) {
+        this.sentCount = sentCount;
+        this.failedCount = failedCount;
+        this.malformedCount = malformedCount;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    public long getTotalCount() {
+        return sentCount + failedCount + malformedCount;
+    }
+}
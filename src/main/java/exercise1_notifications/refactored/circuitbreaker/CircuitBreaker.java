@@ -0,0 +1,148 @@
+package exercise1_notifications.refactored.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+public class CircuitBreaker {
+    private final CircuitBreakerConfig config;
+    private final LongSupplier nanoClock;
+    private final long bucketNanos;
+    private final long openNanos;
+    private final AtomicLongArray bucketEpochs;
+    private final AtomicLongArray bucketCalls;
+    private final AtomicLongArray bucketFailures;
+    private final AtomicReference<CircuitState> state;
+    private final AtomicInteger halfOpenPermits;
+    private final AtomicInteger halfOpenSuccesses;
+    private volatile long openedAtNanos;
+
+    public CircuitBreaker(CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    public CircuitBreaker(CircuitBreakerConfig config, LongSupplier nanoClock) {
+        int buckets = config.getWindowBuckets();
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.bucketNanos = Math.max(1L, config.getSlidingWindow().toNanos() / buckets);
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.bucketEpochs = new AtomicLongArray(buckets);
+        this.bucketCalls = new AtomicLongArray(buckets);
+        this.bucketFailures = new AtomicLongArray(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bucketEpochs.set(i, Long.MIN_VALUE);
+        }
+        this.state = new AtomicReference<>(CircuitState.CLOSED);
+        this.halfOpenPermits = new AtomicInteger();
+        this.halfOpenSuccesses = new AtomicInteger();
+    }
+
+    public boolean tryAcquirePermission() {
+        CircuitState current = state.get();
+        if (current == CircuitState.CLOSED) {
+            return true;
+        }
+        if (current == CircuitState.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openNanos) {
+                return false;
+            }
+            if (state.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(config.getHalfOpenPermits());
+            }
+        }
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0 || state.get() != CircuitState.HALF_OPEN) {
+                return state.get() == CircuitState.CLOSED;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        if (state.get() == CircuitState.HALF_OPEN) {
+            if (halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenPermits()
+                    && state.compareAndSet(CircuitState.HALF_OPEN, CircuitState.CLOSED)) {
+                halfOpenPermits.set(0);
+                resetWindow();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public void onFailure() {
+        CircuitState current = state.get();
+        if (current == CircuitState.HALF_OPEN) {
+            trip(CircuitState.HALF_OPEN);
+            return;
+        }
+        if (current == CircuitState.CLOSED && record(true)) {
+            trip(CircuitState.CLOSED);
+        }
+    }
+
+    public CircuitState getState() {
+        CircuitState current = state.get();
+        if (current == CircuitState.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            return CircuitState.HALF_OPEN;
+        }
+        return current;
+    }
+
+    public double getFailureRate() {
+        long[] totals = windowTotals(nanoClock.getAsLong() / bucketNanos);
+        return totals[0] == 0 ? 0 : (double) totals[1] / totals[0];
+    }
+
+    private boolean record(boolean failure) {
+        long epoch = nanoClock.getAsLong() / bucketNanos;
+        int index = (int) Math.floorMod(epoch, (long) bucketEpochs.length());
+        long bucketEpoch = bucketEpochs.get(index);
+        if (bucketEpoch != epoch && bucketEpochs.compareAndSet(index, bucketEpoch, epoch)) {
+            bucketCalls.set(index, 0);
+            bucketFailures.set(index, 0);
+        }
+        bucketCalls.incrementAndGet(index);
+        if (!failure) {
+            return false;
+        }
+        bucketFailures.incrementAndGet(index);
+        long[] totals = windowTotals(epoch);
+        return totals[0] >= config.getMinimumCalls()
+                && totals[1] >= config.getFailureRateThreshold() * totals[0];
+    }
+
+    private long[] windowTotals(long currentEpoch) {
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < bucketEpochs.length(); i++) {
+            if (currentEpoch - bucketEpochs.get(i) < bucketEpochs.length()) {
+                calls += bucketCalls.get(i);
+                failures += bucketFailures.get(i);
+            }
+        }
+        return new long[]{calls, failures};
+    }
+
+    private void trip(CircuitState from) {
+        if (state.compareAndSet(from, CircuitState.OPEN)) {
+            halfOpenPermits.set(0);
+            openedAtNanos = nanoClock.getAsLong();
+            resetWindow();
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < bucketEpochs.length(); i++) {
+            bucketEpochs.set(i, Long.MIN_VALUE);
+            bucketCalls.set(i, 0);
+            bucketFailures.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package exercise1_notifications.refactored.circuitbreaker;
+
+import java.time.Duration;
+
+public class CircuitBreakerConfig {
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration slidingWindow;
+    private final int windowBuckets;
+    private final Duration openDuration;
+    private final int halfOpenPermits;
+
+    public CircuitBreakerConfig(double failureRateThreshold, int minimumCalls, Duration slidingWindow,
+                                int windowBuckets, Duration openDuration, int halfOpenPermits) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]");
+        }
+        if (minimumCalls < 1) throw new IllegalArgumentException("Minimum calls must be positive");
+        if (windowBuckets < 1) throw new IllegalArgumentException("Window buckets must be positive");
+        if (halfOpenPermits < 1) throw new IllegalArgumentException("Half-open permits must be positive");
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.slidingWindow = slidingWindow;
+        this.windowBuckets = windowBuckets;
+        this.openDuration = openDuration;
+        this.halfOpenPermits = halfOpenPermits;
+    }
+
+    public static CircuitBreakerConfig defaults() {
+        return new CircuitBreakerConfig(0.5, 20, Duration.ofSeconds(10), 10, Duration.ofSeconds(30), 5);
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public Duration getSlidingWindow() {
+        return slidingWindow;
+    }
+
+    public int getWindowBuckets() {
+        return windowBuckets;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenPermits() {
+        return halfOpenPermits;
+    }
+}
@@ -0,0 +1,67 @@
+package exercise1_notifications.refactored.circuitbreaker;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.NotificationSender;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public class CircuitBreakerNotificationSender implements NotificationSender {
+    private final NotificationSender delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Predicate<NotificationResult> failurePredicate;
+
+    public CircuitBreakerNotificationSender(NotificationSender delegate, CircuitBreaker circuitBreaker,
+                                            Predicate<NotificationResult> failurePredicate) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.failurePredicate = failurePredicate;
+    }
+
+    @Override
+    public String getType() {
+        return delegate.getType();
+    }
+
+    @Override
+    public NotificationResult send(String recipient, String message) {
+        return guarded(() -> delegate.send(recipient, message));
+    }
+
+    @Override
+    public NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        return guarded(() -> delegate.sendFormatted(recipient, message, formattedMessage));
+    }
+
+    @Override
+    public boolean validateRecipient(String recipient) {
+        return delegate.validateRecipient(recipient);
+    }
+
+    @Override
+    public String formatMessage(String message) {
+        return delegate.formatMessage(message);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private NotificationResult guarded(Supplier<NotificationResult> send) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return NotificationResult.failure("circuit open for " + delegate.getType());
+        }
+        boolean failed = true;
+        try {
+            NotificationResult result = send.get();
+            failed = result == null || failurePredicate.test(result);
+            return result;
+        } finally {
+            if (failed) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+        }
+    }
+}
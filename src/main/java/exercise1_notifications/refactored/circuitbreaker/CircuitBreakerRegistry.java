@@ -0,0 +1,34 @@
+package exercise1_notifications.refactored.circuitbreaker;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.NotificationSender;
+import exercise1_notifications.refactored.retry.RetryPolicy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+public class CircuitBreakerRegistry {
+    private final CircuitBreakerConfig config;
+    private final Predicate<NotificationResult> failurePredicate;
+    private final Map<String, CircuitBreaker> breakers;
+
+    public CircuitBreakerRegistry(CircuitBreakerConfig config) {
+        this(config, RetryPolicy::isTransientFailure);
+    }
+
+    public CircuitBreakerRegistry(CircuitBreakerConfig config, Predicate<NotificationResult> failurePredicate) {
+        this.config = config;
+        this.failurePredicate = failurePredicate;
+        this.breakers = new ConcurrentHashMap<>();
+    }
+
+    public CircuitBreaker breakerFor(String notificationType) {
+        return breakers.computeIfAbsent(notificationType.toUpperCase(), type -> new CircuitBreaker(config));
+    }
+
+    public UnaryOperator<NotificationSender> decorator() {
+        return sender -> new CircuitBreakerNotificationSender(sender, breakerFor(sender.getType()), failurePredicate);
+    }
+}
@@ -0,0 +1,7 @@
+package exercise1_notifications.refactored.circuitbreaker;
+
+public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
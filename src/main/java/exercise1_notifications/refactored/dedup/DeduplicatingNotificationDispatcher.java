@@ -0,0 +1,24 @@
+package exercise1_notifications.refactored.dedup;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+
+public class DeduplicatingNotificationDispatcher implements NotificationDispatcher {
+    private final NotificationDispatcher delegate;
+    private final DeduplicationCache cache;
+
+    public DeduplicatingNotificationDispatcher(NotificationDispatcher delegate, DeduplicationCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        return cache.getOrSend(notificationType, recipient, message,
+                () -> delegate.sendNotification(notificationType, recipient, message));
+    }
+
+    public DeduplicationCache getCache() {
+        return cache;
+    }
+}
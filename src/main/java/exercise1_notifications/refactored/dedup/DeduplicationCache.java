@@ -0,0 +1,158 @@
+package exercise1_notifications.refactored.dedup;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class DeduplicationCache {
+    private static final int MAX_INSERT_ATTEMPTS = 4;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public DeduplicationCache(int capacity, Duration ttl) {
+        this(capacity, ttl, System::nanoTime);
+    }
+
+    public DeduplicationCache(int capacity, Duration ttl, LongSupplier nanoClock) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    public NotificationResult getOrSend(String notificationType, String recipient, String message,
+                                        Supplier<NotificationResult> send) {
+        long hash = hash(notificationType, recipient, message);
+        int first = spread(hash) & mask;
+        int second = first ^ 1;
+
+        for (int attempt = 0; attempt < MAX_INSERT_ATTEMPTS; attempt++) {
+            long now = nanoClock.getAsLong();
+            Entry firstEntry = slots.get(first);
+            Entry secondEntry = slots.get(second);
+            Entry existing = live(firstEntry, now, hash, notificationType, recipient, message);
+            if (existing == null) {
+                existing = live(secondEntry, now, hash, notificationType, recipient, message);
+            }
+            if (existing != null) {
+                hits.increment();
+                return await(existing);
+            }
+
+            int victim = chooseVictim(firstEntry, secondEntry, now) ? first : second;
+            Entry expected = victim == first ? firstEntry : secondEntry;
+            Entry mine = new Entry(hash, notificationType, recipient, message, now + ttlNanos);
+            if (slots.compareAndSet(victim, expected, mine)) {
+                misses.increment();
+                return complete(victim, mine, send);
+            }
+        }
+        misses.increment();
+        return send.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private NotificationResult complete(int slot, Entry entry, Supplier<NotificationResult> send) {
+        NotificationResult result;
+        try {
+            result = send.get();
+        } catch (Throwable e) {
+            slots.compareAndSet(slot, entry, null);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        if (result == null || !result.isSuccess()) {
+            slots.compareAndSet(slot, entry, null);
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    private static NotificationResult await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private boolean chooseVictim(Entry first, Entry second, long now) {
+        if (first == null || first.expiresAtNanos - now <= 0) {
+            return true;
+        }
+        if (second == null || second.expiresAtNanos - now <= 0) {
+            return false;
+        }
+        return first.expiresAtNanos - second.expiresAtNanos <= 0;
+    }
+
+    private Entry live(Entry entry, long now, long hash, String notificationType, String recipient, String message) {
+        if (entry == null || entry.hash != hash || entry.expiresAtNanos - now <= 0) {
+            return null;
+        }
+        if (!Objects.equals(entry.notificationType, notificationType) || !Objects.equals(entry.recipient, recipient)
+                || !Objects.equals(entry.message, message)) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static long hash(String notificationType, String recipient, String message) {
+        long hash = Objects.hashCode(notificationType);
+        hash = hash * 0x9E3779B97F4A7C15L + Objects.hashCode(recipient);
+        hash = hash * 0x9E3779B97F4A7C15L + Objects.hashCode(message);
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static final class Entry {
+        private final long hash;
+        private final String notificationType;
+        private final String recipient;
+        private final String message;
+        private final long expiresAtNanos;
+        private final CompletableFuture<NotificationResult> result;
+
+        private Entry(long hash, String notificationType, String recipient, String message, long expiresAtNanos) {
+            this.hash = hash;
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.message = message;
+            this.expiresAtNanos = expiresAtNanos;
+            this.result = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package exercise1_notifications.refactored.digest;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+import exercise1_notifications.refactored.validation.RecipientValidator;
+import exercise1_notifications.refactored.validation.RecipientValidators;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+public class CoalescingNotificationDispatcher implements NotificationDispatcher, Closeable {
+    private final NotificationDispatcher delegate;
+    private final Set<String> coalescedTypes;
+    private final long windowNanos;
+    private final int maxMessagesPerWindow;
+    private final int maxOpenWindows;
+    private final DigestFormatter digestFormatter;
+    private final Map<String, RecipientValidator> recipientValidators;
+    private final DigestFailureListener failureListener;
+    private final ScheduledExecutorService scheduler;
+    private final Map<WindowKey, Window> windows;
+    private final AtomicInteger openWindows;
+    private final LongAdder coalescedMessages;
+    private final LongAdder digestsSent;
+    private final LongAdder digestsFailed;
+    private volatile boolean closed;
+
+    public CoalescingNotificationDispatcher(NotificationDispatcher delegate, Set<String> coalescedTypes,
+                                            Duration window, int maxMessagesPerWindow, int maxOpenWindows) {
+        this(delegate, coalescedTypes, window, maxMessagesPerWindow, maxOpenWindows, DigestFormatter.bulleted(),
+                defaultScheduler());
+    }
+
+    public CoalescingNotificationDispatcher(NotificationDispatcher delegate, Set<String> coalescedTypes,
+                                            Duration window, int maxMessagesPerWindow, int maxOpenWindows,
+                                            DigestFormatter digestFormatter, ScheduledExecutorService scheduler) {
+        this(delegate, coalescedTypes, window, maxMessagesPerWindow, maxOpenWindows, digestFormatter, scheduler,
+                defaultValidators(), DigestFailureListener.ignoring());
+    }
+
+    public CoalescingNotificationDispatcher(NotificationDispatcher delegate, Set<String> coalescedTypes,
+                                            Duration window, int maxMessagesPerWindow, int maxOpenWindows,
+                                            DigestFormatter digestFormatter, ScheduledExecutorService scheduler,
+                                            Map<String, RecipientValidator> recipientValidators,
+                                            DigestFailureListener failureListener) {
+        if (maxMessagesPerWindow < 1) throw new IllegalArgumentException("Window size must be positive");
+        if (maxOpenWindows < 1) throw new IllegalArgumentException("Open window limit must be positive");
+        this.delegate = delegate;
+        this.coalescedTypes = coalescedTypes.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        this.windowNanos = window.toNanos();
+        this.maxMessagesPerWindow = maxMessagesPerWindow;
+        this.maxOpenWindows = maxOpenWindows;
+        this.digestFormatter = digestFormatter;
+        this.scheduler = scheduler;
+        this.recipientValidators = new HashMap<>();
+        recipientValidators.forEach((type, validator) -> this.recipientValidators.put(type.toUpperCase(), validator));
+        this.failureListener = failureListener;
+        this.windows = new ConcurrentHashMap<>();
+        this.openWindows = new AtomicInteger();
+        this.coalescedMessages = new LongAdder();
+        this.digestsSent = new LongAdder();
+        this.digestsFailed = new LongAdder();
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        String normalizedType = notificationType == null ? null : notificationType.toUpperCase();
+        if (closed || normalizedType == null || !coalescedTypes.contains(normalizedType)) {
+            return delegate.sendNotification(notificationType, recipient, message);
+        }
+        RecipientValidator validator = recipientValidators.get(normalizedType);
+        if (validator != null && !validator.isValid(recipient)) {
+            return NotificationResult.INVALID_RECIPIENT;
+        }
+        WindowKey key = new WindowKey(normalizedType, recipient);
+        while (true) {
+            if (closed) {
+                return delegate.sendNotification(notificationType, recipient, message);
+            }
+            Window window = windows.get(key);
+            if (window == null) {
+                if (openWindows.get() >= maxOpenWindows) {
+                    return delegate.sendNotification(notificationType, recipient, message);
+                }
+                Window created = new Window(key);
+                window = windows.putIfAbsent(key, created);
+                if (window == null) {
+                    openWindows.incrementAndGet();
+                    window = created;
+                    try {
+                        created.setTimer(scheduler.schedule(() -> flush(created), windowNanos,
+                                TimeUnit.NANOSECONDS));
+                    } catch (RejectedExecutionException e) {
+                        flush(created);
+                        return delegate.sendNotification(notificationType, recipient, message);
+                    }
+                }
+            }
+            int added = window.add(message, maxMessagesPerWindow);
+            if (added < 0) {
+                continue;
+            }
+            coalescedMessages.increment();
+            if (added == maxMessagesPerWindow) {
+                flush(window);
+            }
+            return NotificationResult.success("coalesced into digest for " + recipient);
+        }
+    }
+
+    public void flushAll() {
+        for (Window window : windows.values()) {
+            flush(window);
+        }
+    }
+
+    public int getOpenWindowCount() {
+        return openWindows.get();
+    }
+
+    public long getCoalescedMessageCount() {
+        return coalescedMessages.sum();
+    }
+
+    public long getDigestsSentCount() {
+        return digestsSent.sum();
+    }
+
+    public long getDigestsFailedCount() {
+        return digestsFailed.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flushAll();
+        scheduler.shutdownNow();
+    }
+
+    private void flush(Window window) {
+        List<String> messages = window.close();
+        if (messages == null) {
+            return;
+        }
+        windows.remove(window.key, window);
+        openWindows.decrementAndGet();
+        if (messages.isEmpty()) {
+            return;
+        }
+        String digest = digestFormatter.format(window.key.notificationType, window.key.recipient, messages);
+        NotificationResult result;
+        try {
+            result = delegate.sendNotification(window.key.notificationType, window.key.recipient, digest);
+        } catch (RuntimeException e) {
+            result = NotificationResult.failure("digest send failed: " + e.getMessage());
+        }
+        if (result != null && result.isSuccess()) {
+            digestsSent.increment();
+            return;
+        }
+        digestsFailed.increment();
+        failureListener.onDigestFailure(window.key.notificationType, window.key.recipient, messages,
+                result == null ? NotificationResult.UNKNOWN : result);
+    }
+
+    private static ScheduledExecutorService defaultScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "notification-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static Map<String, RecipientValidator> defaultValidators() {
+        Map<String, RecipientValidator> validators = new HashMap<>();
+        validators.put("EMAIL", RecipientValidators.EMAIL);
+        validators.put("SMS", RecipientValidators.E164_PHONE);
+        validators.put("PUSH", RecipientValidators.DEVICE_TOKEN);
+        return validators;
+    }
+
+    private static final class Window {
+        private final WindowKey key;
+        private List<String> messages;
+        private ScheduledFuture<?> timer;
+
+        private Window(WindowKey key) {
+            this.key = key;
+            this.messages = new ArrayList<>();
+        }
+
+        private synchronized int add(String message, int maxMessages) {
+            if (messages == null || messages.size() >= maxMessages) {
+                return -1;
+            }
+            messages.add(message);
+            return messages.size();
+        }
+
+        private synchronized void setTimer(ScheduledFuture<?> timer) {
+            if (messages == null) {
+                timer.cancel(false);
+            } else {
+                this.timer = timer;
+            }
+        }
+
+        private synchronized List<String> close() {
+            List<String> closed = messages;
+            messages = null;
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            return closed;
+        }
+    }
+
+    private static final class WindowKey {
+        private final String notificationType;
+        private final String recipient;
+        private final int hash;
+
+        private WindowKey(String notificationType, String recipient) {
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.hash = 31 * notificationType.hashCode() + Objects.hashCode(recipient);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey that = (WindowKey) other;
+            return notificationType.equals(that.notificationType) && Objects.equals(recipient, that.recipient);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package exercise1_notifications.refactored.digest;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface DigestFailureListener {
+
+    void onDigestFailure(String notificationType, String recipient, List<String> messages, NotificationResult result);
+
+    static DigestFailureListener ignoring() {
+        return (notificationType, recipient, messages, result) -> {
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package exercise1_notifications.refactored.digest;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface DigestFormatter {
+
+    String format(String notificationType, String recipient, List<String> messages);
+
+    static DigestFormatter bulleted() {
+        return (notificationType, recipient, messages) -> {
+            if (messages.size() == 1) {
+                return messages.get(0);
+            }
+            StringBuilder digest = new StringBuilder("You have ").append(messages.size()).append(" new notifications:");
+            for (String message : messages) {
+                digest.append("\n- ").append(message);
+            }
+            return digest.toString();
+        };
+    }
+}
@@ -5,32 +5,156 @@ import exercise1_notifications.refactored.NotificationSender;
 import exercise1_notifications.refactored.PushNotificationSender;
 import exercise1_notifications.refactored.SmsNotificationSender;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class NotificationSenderFactory {
-    private final Map<String, Supplier<NotificationSender>> registers;
+    private final AtomicReference<Registry> registry;
 
     public NotificationSenderFactory() {
-        this.registers = new HashMap<>();
-        registers.put("EMAIL", EmailNotificationSender::new);
-        registers.put("SMS", SmsNotificationSender::new);
-        registers.put("PUSH", PushNotificationSender::new);
+        this.registry = new AtomicReference<>(Registry.EMPTY);
+        registerSender("EMAIL", new EmailNotificationSender());
+        registerSender("SMS", new SmsNotificationSender());
+        registerSender("PUSH", new PushNotificationSender());
+    }
 
+    public NotificationSender createSender(String type) {
+        return createSender(channelId(type));
+    }
 
+    public NotificationSender createSender(int channelId) {
+        Registry current = registry.get();
+        if (channelId < 0 || channelId >= current.channels.length) {
+            throw new IllegalArgumentException("Unknown notification type");
+        }
+        return current.channels[channelId].sender(current.decorators);
     }
 
-    public NotificationSender createSender(String type) {
-        Supplier<NotificationSender> supplier = registers.get(type.toUpperCase());
-        if (supplier == null) throw new IllegalArgumentException("Unknown notification type");
-        NotificationSender sender = supplier.get();
-        if (sender== null) throw new IllegalArgumentException("Unknown with supplier");
-        return sender;
+    public int channelId(String type) {
+        Registry current = registry.get();
+        Integer id = current.ids.get(type);
+        if (id == null) {
+            id = current.ids.get(type.toUpperCase());
+        }
+        if (id == null) throw new IllegalArgumentException("Unknown notification type");
+        return id;
+    }
+
+    public boolean isRegistered(String type) {
+        if (type == null) {
+            return false;
+        }
+        Map<String, Integer> ids = registry.get().ids;
+        return ids.containsKey(type) || ids.containsKey(type.toUpperCase());
+    }
+
+    public String channelName(int channelId) {
+        Registry current = registry.get();
+        if (channelId < 0 || channelId >= current.channels.length) {
+            throw new IllegalArgumentException("Unknown notification type");
+        }
+        return current.channels[channelId].name;
     }
 
     public void registerSender(String type, Supplier<NotificationSender> supplier) {
-        this.registers.put(type.toUpperCase(), supplier);
+        register(type, supplier, null);
+    }
+
+    public void registerSender(String type, NotificationSender sharedSender) {
+        register(type, null, sharedSender);
     }
 
+    public void addDecorator(UnaryOperator<NotificationSender> decorator) {
+        registry.updateAndGet(current -> current.withDecorator(decorator));
+    }
+
+    private void register(String type, Supplier<NotificationSender> supplier, NotificationSender sharedSender) {
+        String name = type.toUpperCase();
+        registry.updateAndGet(current -> current.withChannel(name, supplier, sharedSender));
+    }
+
+    private static final class Registry {
+        private static final Registry EMPTY = new Registry(Collections.emptyMap(), new Channel[0],
+                Collections.emptyList());
+
+        private final Map<String, Integer> ids;
+        private final Channel[] channels;
+        private final List<UnaryOperator<NotificationSender>> decorators;
+
+        private Registry(Map<String, Integer> ids, Channel[] channels,
+                         List<UnaryOperator<NotificationSender>> decorators) {
+            this.ids = ids;
+            this.channels = channels;
+            this.decorators = decorators;
+        }
+
+        private Registry withChannel(String name, Supplier<NotificationSender> supplier,
+                                     NotificationSender sharedSender) {
+            Integer existing = ids.get(name);
+            int id = existing == null ? channels.length : existing;
+            Channel[] nextChannels = Arrays.copyOf(channels, Math.max(channels.length, id + 1));
+            nextChannels[id] = new Channel(name, supplier, sharedSender, decorators);
+            Map<String, Integer> nextIds = ids;
+            if (existing == null) {
+                nextIds = new HashMap<>(ids);
+                nextIds.put(name, id);
+                nextIds = Collections.unmodifiableMap(nextIds);
+            }
+            return new Registry(nextIds, nextChannels, decorators);
+        }
+
+        private Registry withDecorator(UnaryOperator<NotificationSender> decorator) {
+            List<UnaryOperator<NotificationSender>> nextDecorators = new ArrayList<>(decorators);
+            nextDecorators.add(decorator);
+            nextDecorators = Collections.unmodifiableList(nextDecorators);
+            Channel[] nextChannels = new Channel[channels.length];
+            for (int i = 0; i < channels.length; i++) {
+                nextChannels[i] = channels[i].redecorate(nextDecorators);
+            }
+            return new Registry(ids, nextChannels, nextDecorators);
+        }
+    }
+
+    private static final class Channel {
+        private final String name;
+        private final Supplier<NotificationSender> supplier;
+        private final NotificationSender sharedSender;
+        private final NotificationSender decoratedSharedSender;
+
+        private Channel(String name, Supplier<NotificationSender> supplier, NotificationSender sharedSender,
+                        List<UnaryOperator<NotificationSender>> decorators) {
+            this.name = name;
+            this.supplier = supplier;
+            this.sharedSender = sharedSender;
+            this.decoratedSharedSender = sharedSender == null ? null : decorate(sharedSender, decorators);
+        }
+
+        private Channel redecorate(List<UnaryOperator<NotificationSender>> decorators) {
+            return new Channel(name, supplier, sharedSender, decorators);
+        }
+
+        private NotificationSender sender(List<UnaryOperator<NotificationSender>> decorators) {
+            if (decoratedSharedSender != null) {
+                return decoratedSharedSender;
+            }
+            NotificationSender sender = supplier.get();
+            if (sender== null) throw new IllegalArgumentException("Unknown with supplier");
+            return decorate(sender, decorators);
+        }
+
+        private static NotificationSender decorate(NotificationSender sender,
+                                                   List<UnaryOperator<NotificationSender>> decorators) {
+            for (UnaryOperator<NotificationSender> decorator : decorators) {
+                sender = decorator.apply(sender);
+            }
+            return sender;
+        }
+    }
 }
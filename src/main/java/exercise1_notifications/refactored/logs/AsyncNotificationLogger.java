@@ -0,0 +1,120 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncNotificationLogger implements NotificationLogSink, Closeable {
+    public static final Duration DEFAULT_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    private static final long FLUSH_PARK_NANOS = 50_000L;
+
+    private final NotificationLogSink delegate;
+    private final NotificationRingBuffer ringBuffer;
+    private final Thread consumer;
+    private final LongAdder rejectedAfterClose;
+    private final LongAdder failedCount;
+    private volatile boolean running;
+    private volatile boolean draining;
+
+    public AsyncNotificationLogger(NotificationLogSink delegate, int capacity, OverflowPolicy overflowPolicy) {
+        this.delegate = delegate;
+        this.ringBuffer = new NotificationRingBuffer(capacity, overflowPolicy);
+        this.rejectedAfterClose = new LongAdder();
+        this.failedCount = new LongAdder();
+        this.running = true;
+        this.consumer = new Thread(this::drainLoop, "notification-logger");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void log(NotificationLogEntry logEntry) {
+        if (!running) {
+            rejectedAfterClose.increment();
+            return;
+        }
+        ringBuffer.publish(logEntry);
+    }
+
+    @Override
+    public void logAll(Collection<NotificationLogEntry> logEntries) {
+        for (NotificationLogEntry logEntry : logEntries) {
+            log(logEntry);
+        }
+    }
+
+    @Override
+    public List<NotificationLogEntry> getNotificationLogs() {
+        return delegate.getNotificationLogs();
+    }
+
+    public long getDroppedCount() {
+        return ringBuffer.getDroppedCount() + rejectedAfterClose.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return ringBuffer.size();
+    }
+
+    public boolean flush() {
+        return flush(DEFAULT_FLUSH_TIMEOUT);
+    }
+
+    public boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!ringBuffer.isEmpty() || draining) {
+            if (!consumer.isAlive() || deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, FLUSH_PARK_NANOS);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.NANOSECONDS.toMillis(DEFAULT_FLUSH_TIMEOUT.toNanos()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<NotificationLogEntry> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        while (running || !ringBuffer.isEmpty()) {
+            draining = true;
+            NotificationLogEntry logEntry;
+            while (batch.size() < DRAIN_BATCH_SIZE && (logEntry = ringBuffer.poll()) != null) {
+                batch.add(logEntry);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    delegate.logAll(batch);
+                } catch (Throwable e) {
+                    failedCount.add(batch.size());
+                }
+                batch.clear();
+                continue;
+            }
+            draining = false;
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        draining = false;
+    }
+}
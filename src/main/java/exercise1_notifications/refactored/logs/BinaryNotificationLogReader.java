@@ -0,0 +1,63 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class BinaryNotificationLogReader {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+
+    public BinaryNotificationLogReader(Path file) {
+        this.file = file;
+    }
+
+    public List<NotificationLogEntry> readAll() throws IOException {
+        List<NotificationLogEntry> logEntries = new ArrayList<>();
+        forEach(logEntries::add);
+        return logEntries;
+    }
+
+    public long forEach(Consumer<NotificationLogEntry> consumer) throws IOException {
+        long count = 0;
+        long offset = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            while (true) {
+                int read = channel.read(buffer);
+                buffer.flip();
+                int recordSize;
+                try {
+                    while ((recordSize = NotificationLogCodec.peekRecordSize(buffer)) >= 0
+                            && buffer.remaining() >= recordSize) {
+                        NotificationLogEntry logEntry = NotificationLogCodec.decode(buffer.slice().limit(recordSize));
+                        buffer.position(buffer.position() + recordSize);
+                        offset += recordSize;
+                        consumer.accept(logEntry);
+                        count++;
+                    }
+                } catch (IllegalArgumentException | BufferUnderflowException e) {
+                    throw new IOException("Corrupt notification log record at offset " + offset + " in " + file, e);
+                }
+                if (read < 0) {
+                    if (buffer.hasRemaining()) {
+                        throw new IOException("Truncated notification log record in " + file);
+                    }
+                    return count;
+                }
+                if (recordSize > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(recordSize).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+            }
+        }
+    }
+}
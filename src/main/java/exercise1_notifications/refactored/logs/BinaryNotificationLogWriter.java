@@ -0,0 +1,60 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryNotificationLogWriter implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public BinaryNotificationLogWriter(Path file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BinaryNotificationLogWriter(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public synchronized void append(NotificationLogEntry logEntry) {
+        if (NotificationLogCodec.encode(logEntry, buffer)) {
+            return;
+        }
+        flush();
+        if (NotificationLogCodec.encode(logEntry, buffer)) {
+            return;
+        }
+        ByteBuffer oversized = ByteBuffer.allocate(NotificationLogCodec.maxEncodedSize(logEntry));
+        NotificationLogCodec.encode(logEntry, oversized);
+        writeFully(oversized.flip());
+    }
+
+    public synchronized void flush() {
+        writeFully(buffer.flip());
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+public class BinaryNotificationLogger extends NotificationLogger implements Closeable {
+    private final BinaryNotificationLogWriter writer;
+
+    public BinaryNotificationLogger(BinaryNotificationLogWriter writer, int retentionLimit) {
+        super(System.out, retentionLimit);
+        this.writer = writer;
+    }
+
+    @Override
+    protected void write(NotificationLogEntry logEntry) {
+        writer.append(logEntry);
+    }
+
+    @Override
+    protected void writeAll(Collection<NotificationLogEntry> logEntries) {
+        for (NotificationLogEntry logEntry : logEntries) {
+            writer.append(logEntry);
+        }
+    }
+
+    public void flush() {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
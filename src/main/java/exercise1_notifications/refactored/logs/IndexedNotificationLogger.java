@@ -0,0 +1,34 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.PrintStream;
+import java.util.Collection;
+
+public class IndexedNotificationLogger extends NotificationLogger {
+    private final NotificationLogIndex index;
+
+    public IndexedNotificationLogger() {
+        this(System.out, 0);
+    }
+
+    public IndexedNotificationLogger(PrintStream out, int retentionLimit) {
+        super(out, retentionLimit);
+        this.index = new NotificationLogIndex(retentionLimit == 0
+                ? NotificationLogIndex.DEFAULT_RETENTION_LIMIT : retentionLimit);
+    }
+
+    @Override
+    public void log(NotificationLogEntry logEntry) {
+        super.log(logEntry);
+        index.add(logEntry);
+    }
+
+    @Override
+    public void logAll(Collection<NotificationLogEntry> logEntries) {
+        super.logAll(logEntries);
+        index.addAll(logEntries);
+    }
+
+    public NotificationLogPage query(NotificationLogQuery query) {
+        return index.query(query);
+    }
+}
@@ -0,0 +1,41 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+public class JournalNotificationLogger extends NotificationLogger implements Closeable {
+    private final NotificationJournal journal;
+
+    public JournalNotificationLogger(NotificationJournal journal, int retentionLimit) {
+        super(System.out, retentionLimit);
+        this.journal = journal;
+    }
+
+    @Override
+    protected void write(NotificationLogEntry logEntry) {
+        journal.append(logEntry);
+    }
+
+    @Override
+    protected void writeAll(Collection<NotificationLogEntry> logEntries) {
+        for (NotificationLogEntry logEntry : logEntries) {
+            journal.append(logEntry);
+        }
+    }
+
+    public long replay(long fromEpochNanos, long toEpochNanos, Consumer<NotificationLogEntry> consumer)
+            throws IOException {
+        return journal.replay(fromEpochNanos, toEpochNanos, consumer);
+    }
+
+    public NotificationJournalTailer follow(long fromEpochNanos) {
+        return journal.follow(fromEpochNanos);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
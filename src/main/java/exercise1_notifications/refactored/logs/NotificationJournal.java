@@ -0,0 +1,231 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class NotificationJournal implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    static final int HEADER_BYTES = 16;
+    static final int END_OF_SEGMENT = -1;
+
+    private static final int MIN_NANOS_OFFSET = 0;
+    private static final int MAX_NANOS_OFFSET = 8;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final int segmentSize;
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+    private int writePosition;
+
+    public NotificationJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public NotificationJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_BYTES + 64) throw new IllegalArgumentException("Segment size too small");
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            recoverSegment(segments.get(segments.size() - 1));
+        }
+    }
+
+    public synchronized void append(NotificationLogEntry logEntry) {
+        if (segment == null) throw new IllegalStateException("Journal is closed");
+        int maxRecordSize = RECORD_HEADER_BYTES + NotificationLogCodec.maxEncodedBodySize(logEntry);
+        if (maxRecordSize > segmentSize - HEADER_BYTES) {
+            throw new IllegalArgumentException("Notification log entry does not fit in a journal segment");
+        }
+        if (writePosition + maxRecordSize > segmentSize) {
+            rollSegment();
+        }
+        ByteBuffer target = segment.duplicate();
+        target.position(writePosition + RECORD_HEADER_BYTES);
+        NotificationLogCodec.encodeBody(logEntry, target);
+        int recordSize = target.position() - writePosition - RECORD_HEADER_BYTES;
+
+        long epochNanos = logEntry.getEpochNanos();
+        long minNanos = (long) LONG_VIEW.getAcquire(segment, MIN_NANOS_OFFSET);
+        long maxNanos = (long) LONG_VIEW.getAcquire(segment, MAX_NANOS_OFFSET);
+        if (writePosition == HEADER_BYTES || epochNanos < minNanos) {
+            LONG_VIEW.setRelease(segment, MIN_NANOS_OFFSET, epochNanos);
+        }
+        if (writePosition == HEADER_BYTES || epochNanos > maxNanos) {
+            LONG_VIEW.setRelease(segment, MAX_NANOS_OFFSET, epochNanos);
+        }
+        INT_VIEW.setRelease(segment, writePosition, recordSize);
+        writePosition = align(target.position());
+    }
+
+    public long replay(long fromEpochNanos, long toEpochNanos, Consumer<NotificationLogEntry> consumer)
+            throws IOException {
+        long count = 0;
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            ByteBuffer header = readHeader(segments.get(i));
+            if (header == null || !overlaps(header, fromEpochNanos, toEpochNanos, i == segments.size() - 1)) {
+                continue;
+            }
+            ByteBuffer buffer = mapReadOnly(segments.get(i));
+            if (buffer == null) {
+                continue;
+            }
+            int position = HEADER_BYTES;
+            int recordSize;
+            while ((recordSize = committedRecordSize(buffer, position)) > 0) {
+                NotificationLogEntry logEntry = decodeRecord(buffer, position);
+                if (logEntry.getEpochNanos() >= fromEpochNanos && logEntry.getEpochNanos() <= toEpochNanos) {
+                    consumer.accept(logEntry);
+                    count++;
+                }
+                position = nextRecordPosition(position, recordSize);
+            }
+        }
+        return count;
+    }
+
+    public NotificationJournalTailer follow(long fromEpochNanos) {
+        return new NotificationJournalTailer(this, fromEpochNanos);
+    }
+
+    public synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        segment = null;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    long segmentIndexOf(Path segmentPath) {
+        String fileName = segmentPath.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    ByteBuffer mapReadOnly(Path segmentPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            if (channel.size() < segmentSize) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        }
+    }
+
+    ByteBuffer readHeader(Path segmentPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            if (channel.size() < segmentSize) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocateDirect(HEADER_BYTES + RECORD_HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return null;
+                }
+            }
+            return header.clear();
+        }
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static int committedRecordSize(ByteBuffer buffer, int position) {
+        if (position + RECORD_HEADER_BYTES > buffer.capacity()) {
+            return END_OF_SEGMENT;
+        }
+        return (int) INT_VIEW.getAcquire(buffer, position);
+    }
+
+    static NotificationLogEntry decodeRecord(ByteBuffer buffer, int position) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + RECORD_HEADER_BYTES);
+        return NotificationLogCodec.decodeBody(record);
+    }
+
+    static int nextRecordPosition(int position, int recordSize) {
+        return align(position + RECORD_HEADER_BYTES + recordSize);
+    }
+
+    static boolean overlaps(ByteBuffer buffer, long fromEpochNanos, long toEpochNanos, boolean activeSegment) {
+        if (committedRecordSize(buffer, HEADER_BYTES) == 0) {
+            return activeSegment;
+        }
+        long minNanos = (long) LONG_VIEW.getAcquire(buffer, MIN_NANOS_OFFSET);
+        long maxNanos = (long) LONG_VIEW.getAcquire(buffer, MAX_NANOS_OFFSET);
+        return minNanos <= toEpochNanos && (activeSegment || maxNanos >= fromEpochNanos);
+    }
+
+    private static int align(int position) {
+        return (position + RECORD_HEADER_BYTES - 1) & -RECORD_HEADER_BYTES;
+    }
+
+    private void rollSegment() {
+        if (writePosition + RECORD_HEADER_BYTES <= segmentSize) {
+            INT_VIEW.setRelease(segment, writePosition, END_OF_SEGMENT);
+        }
+        segment.force();
+        try {
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segmentIndex = index;
+        writePosition = HEADER_BYTES;
+    }
+
+    private void recoverSegment(Path segmentPath) throws IOException {
+        openSegment(segmentIndexOf(segmentPath));
+        int recordSize;
+        while ((recordSize = committedRecordSize(segment, writePosition)) > 0) {
+            writePosition = nextRecordPosition(writePosition, recordSize);
+        }
+        if (recordSize == END_OF_SEGMENT) {
+            openSegment(segmentIndex + 1);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package exercise1_notifications.refactored.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class NotificationJournalTailer {
+    private final NotificationJournal journal;
+    private final long fromEpochNanos;
+    private long segmentIndex;
+    private ByteBuffer segment;
+    private int position;
+
+    NotificationJournalTailer(NotificationJournal journal, long fromEpochNanos) {
+        this.journal = journal;
+        this.fromEpochNanos = fromEpochNanos;
+        this.segmentIndex = -1;
+    }
+
+    public int poll(Consumer<NotificationLogEntry> consumer, int maxEntries) throws IOException {
+        int delivered = 0;
+        while (delivered < maxEntries) {
+            if (segment == null && !openNextSegment()) {
+                return delivered;
+            }
+            int recordSize = NotificationJournal.committedRecordSize(segment, position);
+            if (recordSize == 0) {
+                return delivered;
+            }
+            if (recordSize == NotificationJournal.END_OF_SEGMENT) {
+                segment = null;
+                continue;
+            }
+            NotificationLogEntry logEntry = NotificationJournal.decodeRecord(segment, position);
+            position = NotificationJournal.nextRecordPosition(position, recordSize);
+            if (logEntry.getEpochNanos() >= fromEpochNanos) {
+                consumer.accept(logEntry);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    private boolean openNextSegment() throws IOException {
+        Path next;
+        if (segmentIndex < 0) {
+            next = firstCandidateSegment();
+        } else {
+            next = journal.segmentPath(segmentIndex + 1);
+        }
+        if (next == null || !Files.exists(next)) {
+            return false;
+        }
+        ByteBuffer buffer = journal.mapReadOnly(next);
+        if (buffer == null) {
+            return false;
+        }
+        segment = buffer;
+        segmentIndex = journal.segmentIndexOf(next);
+        position = NotificationJournal.HEADER_BYTES;
+        return true;
+    }
+
+    private Path firstCandidateSegment() throws IOException {
+        List<Path> segments = NotificationJournal.listSegments(journal.getDirectory());
+        for (int i = 0; i < segments.size(); i++) {
+            ByteBuffer header = journal.readHeader(segments.get(i));
+            boolean activeSegment = i == segments.size() - 1;
+            if (header != null && NotificationJournal.overlaps(header, fromEpochNanos, Long.MAX_VALUE, activeSegment)) {
+                return segments.get(i);
+            }
+        }
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+}
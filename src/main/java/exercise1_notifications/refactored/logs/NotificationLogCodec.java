@@ -0,0 +1,148 @@
+package exercise1_notifications.refactored.logs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public final class NotificationLogCodec {
+    public static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+    public static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private static final String[] KNOWN_TYPES = {null, "EMAIL", "SMS", "PUSH"};
+    private static final byte CUSTOM_TYPE_ID = 0;
+    private static final int NULL_LENGTH = -1;
+    private static final int FIXED_BYTES = LENGTH_PREFIX_BYTES + Long.BYTES + 2;
+    private static final int MIN_BODY_BYTES = Long.BYTES + 2 + 2 * Integer.BYTES;
+
+    private NotificationLogCodec() {
+    }
+
+    public static int maxEncodedSize(NotificationLogEntry logEntry) {
+        return FIXED_BYTES
+                + maxStringSize(logEntry.getNotificationType())
+                + maxStringSize(logEntry.getRecipient())
+                + maxStringSize(logEntry.getMessage());
+    }
+
+    public static int maxEncodedBodySize(NotificationLogEntry logEntry) {
+        return maxEncodedSize(logEntry) - LENGTH_PREFIX_BYTES;
+    }
+
+    public static boolean encode(NotificationLogEntry logEntry, ByteBuffer buffer) {
+        if (buffer.remaining() < maxEncodedSize(logEntry)) {
+            return false;
+        }
+        int start = buffer.position();
+        buffer.position(start + LENGTH_PREFIX_BYTES);
+        encodeBody(logEntry, buffer);
+        int length = buffer.position() - start - LENGTH_PREFIX_BYTES;
+        if (length > MAX_RECORD_BYTES - LENGTH_PREFIX_BYTES) {
+            buffer.position(start);
+            throw new IllegalArgumentException("Notification log record exceeds " + MAX_RECORD_BYTES + " bytes");
+        }
+        buffer.putInt(start, length);
+        return true;
+    }
+
+    public static boolean encodeBody(NotificationLogEntry logEntry, ByteBuffer buffer) {
+        if (buffer.remaining() < maxEncodedBodySize(logEntry)) {
+            return false;
+        }
+        buffer.putLong(logEntry.getEpochNanos());
+        buffer.put(logEntry.isStatus() ? (byte) 1 : (byte) 0);
+        byte typeId = typeId(logEntry.getNotificationType());
+        buffer.put(typeId);
+        if (typeId == CUSTOM_TYPE_ID) {
+            putString(logEntry.getNotificationType(), buffer);
+        }
+        putString(logEntry.getRecipient(), buffer);
+        putString(logEntry.getMessage(), buffer);
+        return true;
+    }
+
+    public static NotificationLogEntry decode(ByteBuffer buffer) {
+        buffer.getInt();
+        return decodeBody(buffer);
+    }
+
+    public static NotificationLogEntry decodeBody(ByteBuffer buffer) {
+        long epochNanos = buffer.getLong();
+        boolean status = buffer.get() == 1;
+        byte typeId = buffer.get();
+        if (typeId < 0 || typeId >= KNOWN_TYPES.length) {
+            throw new IllegalArgumentException("Unknown notification type id " + typeId);
+        }
+        String notificationType = typeId == CUSTOM_TYPE_ID ? getString(buffer) : KNOWN_TYPES[typeId];
+        String recipient = getString(buffer);
+        String message = getString(buffer);
+        return new NotificationLogEntry(epochNanos, status, notificationType, recipient, message);
+    }
+
+    public static int peekRecordSize(ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_PREFIX_BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < MIN_BODY_BYTES || length > MAX_RECORD_BYTES - LENGTH_PREFIX_BYTES) {
+            throw new IllegalArgumentException("Corrupt notification log record length " + length);
+        }
+        return LENGTH_PREFIX_BYTES + length;
+    }
+
+    private static byte typeId(String notificationType) {
+        for (byte id = 1; id < KNOWN_TYPES.length; id++) {
+            if (KNOWN_TYPES[id].equals(notificationType)) {
+                return id;
+            }
+        }
+        return CUSTOM_TYPE_ID;
+    }
+
+    private static int maxStringSize(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.length() * 3);
+    }
+
+    private static void putString(String value, ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        int lengthPosition = buffer.position();
+        buffer.position(lengthPosition + Integer.BYTES);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt notification log string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,9 +1,11 @@
 package exercise1_notifications.refactored.logs;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 public class NotificationLogEntry {
-    private final LocalDateTime date;
+    private final long epochNanos;
 
     private final boolean status;
     private final String notificationType;
@@ -11,15 +13,29 @@ public class NotificationLogEntry {
     private final String message;
 
     public NotificationLogEntry(boolean status, String notificationType, String recipient, String message) {
-        this.date = LocalDateTime.now();
+        this(currentEpochNanos(), status, notificationType, recipient, message);
+    }
+
+    public NotificationLogEntry(long epochNanos, boolean status, String notificationType, String recipient,
+                                String message) {
+        this.epochNanos = epochNanos;
         this.status = status;
         this.notificationType = notificationType;
         this.recipient = recipient;
         this.message = message;
     }
 
+    public static long currentEpochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
     public LocalDateTime getDate() {
-        return date;
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneId.systemDefault());
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
     }
 
     public boolean isStatus() {
@@ -0,0 +1,200 @@
+package exercise1_notifications.refactored.logs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class NotificationLogIndex {
+    public static final int DEFAULT_RETENTION_LIMIT = 1_000_000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int POSTING_CAPACITY = 8;
+
+    private final ReadWriteLock lock;
+    private final Map<String, SequenceList> byRecipient;
+    private final Map<String, SequenceList> byType;
+    private final SequenceList succeeded;
+    private final SequenceList failed;
+    private final int retentionLimit;
+    private NotificationLogEntry[] entries;
+    private long[] maxEpochNanos;
+    private int base;
+    private int firstSequence;
+    private int nextSequence;
+    private long latestMaxEpochNanos;
+    private long maxDisorderNanos;
+
+    public NotificationLogIndex() {
+        this(DEFAULT_RETENTION_LIMIT);
+    }
+
+    public NotificationLogIndex(int retentionLimit) {
+        if (retentionLimit < 1) throw new IllegalArgumentException("Retention limit must be positive");
+        this.retentionLimit = retentionLimit;
+        this.lock = new ReentrantReadWriteLock();
+        this.byRecipient = new HashMap<>();
+        this.byType = new HashMap<>();
+        this.succeeded = new SequenceList(INITIAL_CAPACITY);
+        this.failed = new SequenceList(INITIAL_CAPACITY);
+        this.entries = new NotificationLogEntry[INITIAL_CAPACITY];
+        this.maxEpochNanos = new long[INITIAL_CAPACITY];
+        this.latestMaxEpochNanos = Long.MIN_VALUE;
+    }
+
+    public void add(NotificationLogEntry logEntry) {
+        lock.writeLock().lock();
+        try {
+            index(logEntry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<NotificationLogEntry> logEntries) {
+        lock.writeLock().lock();
+        try {
+            for (NotificationLogEntry logEntry : logEntries) {
+                index(logEntry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nextSequence - firstSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public NotificationLogPage query(NotificationLogQuery query) {
+        lock.readLock().lock();
+        try {
+            SequenceList candidates = mostSelectiveList(query);
+            int startSequence = Math.max(query.getCursor() + 1, firstSequenceAtOrAfter(query.getFromEpochNanos()));
+            int position = candidates == null ? startSequence : candidates.firstIndexAtLeast(startSequence);
+            int end = candidates == null ? nextSequence : candidates.size();
+
+            List<NotificationLogEntry> page = new ArrayList<>(Math.min(query.getPageSize(), INITIAL_CAPACITY));
+            int lastSequence = query.getCursor();
+            for (; position < end; position++) {
+                int sequence = candidates == null ? position : candidates.get(position);
+                if (maxEpochNanos[sequence - base] - maxDisorderNanos > query.getToEpochNanos()) {
+                    return new NotificationLogPage(page, lastSequence, false);
+                }
+                NotificationLogEntry logEntry = entries[sequence - base];
+                if (!matches(logEntry, query)) {
+                    continue;
+                }
+                if (page.size() == query.getPageSize()) {
+                    return new NotificationLogPage(page, lastSequence, true);
+                }
+                page.add(logEntry);
+                lastSequence = sequence;
+            }
+            return new NotificationLogPage(page, lastSequence, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(NotificationLogEntry logEntry) {
+        if (nextSequence - base == entries.length) {
+            makeRoom();
+        }
+        int sequence = nextSequence++;
+        long epochNanos = logEntry.getEpochNanos();
+        if (epochNanos < latestMaxEpochNanos) {
+            maxDisorderNanos = Math.max(maxDisorderNanos, latestMaxEpochNanos - epochNanos);
+        } else {
+            latestMaxEpochNanos = epochNanos;
+        }
+        entries[sequence - base] = logEntry;
+        maxEpochNanos[sequence - base] = latestMaxEpochNanos;
+        byRecipient.computeIfAbsent(logEntry.getRecipient(), key -> new SequenceList(POSTING_CAPACITY)).add(sequence);
+        byType.computeIfAbsent(logEntry.getNotificationType(), key -> new SequenceList(POSTING_CAPACITY)).add(sequence);
+        (logEntry.isStatus() ? succeeded : failed).add(sequence);
+        while (nextSequence - firstSequence > retentionLimit) {
+            evictOldest();
+        }
+    }
+
+    private void makeRoom() {
+        int retained = nextSequence - firstSequence;
+        if (firstSequence - base > entries.length >>> 1) {
+            System.arraycopy(entries, firstSequence - base, entries, 0, retained);
+            System.arraycopy(maxEpochNanos, firstSequence - base, maxEpochNanos, 0, retained);
+            Arrays.fill(entries, retained, entries.length, null);
+            base = firstSequence;
+        } else {
+            entries = Arrays.copyOf(entries, entries.length << 1);
+            maxEpochNanos = Arrays.copyOf(maxEpochNanos, maxEpochNanos.length << 1);
+        }
+    }
+
+    private void evictOldest() {
+        NotificationLogEntry evicted = entries[firstSequence - base];
+        entries[firstSequence - base] = null;
+        firstSequence++;
+        removeFirst(byRecipient, evicted.getRecipient());
+        removeFirst(byType, evicted.getNotificationType());
+        (evicted.isStatus() ? succeeded : failed).removeFirst();
+    }
+
+    private void removeFirst(Map<String, SequenceList> postings, String key) {
+        SequenceList sequences = postings.get(key);
+        sequences.removeFirst();
+        if (sequences.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private SequenceList mostSelectiveList(NotificationLogQuery query) {
+        SequenceList selected = null;
+        if (query.getRecipient() != null) {
+            selected = smaller(selected, byRecipient.getOrDefault(query.getRecipient(), new SequenceList(0)));
+        }
+        if (query.getNotificationType() != null) {
+            selected = smaller(selected, byType.getOrDefault(query.getNotificationType(), new SequenceList(0)));
+        }
+        if (query.getSuccess() != null) {
+            selected = smaller(selected, query.getSuccess() ? succeeded : failed);
+        }
+        return selected;
+    }
+
+    private SequenceList smaller(SequenceList current, SequenceList candidate) {
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+
+    private int firstSequenceAtOrAfter(long epochNanos) {
+        int low = firstSequence;
+        int high = nextSequence;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (maxEpochNanos[middle - base] < epochNanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean matches(NotificationLogEntry logEntry, NotificationLogQuery query) {
+        return (query.getRecipient() == null || query.getRecipient().equals(logEntry.getRecipient()))
+                && (query.getNotificationType() == null
+                    || query.getNotificationType().equals(logEntry.getNotificationType()))
+                && (query.getSuccess() == null || query.getSuccess() == logEntry.isStatus())
+                && logEntry.getEpochNanos() >= query.getFromEpochNanos()
+                && logEntry.getEpochNanos() <= query.getToEpochNanos();
+    }
+}
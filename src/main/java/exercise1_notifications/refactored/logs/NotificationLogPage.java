@@ -0,0 +1,27 @@
+package exercise1_notifications.refactored.logs;
+
+import java.util.List;
+
+public class NotificationLogPage {
+    private final List<NotificationLogEntry> entries;
+    private final int nextCursor;
+    private final boolean hasNext;
+
+    public NotificationLogPage(List<NotificationLogEntry> entries, int nextCursor, boolean hasNext) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<NotificationLogEntry> getEntries() {
+        return entries;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
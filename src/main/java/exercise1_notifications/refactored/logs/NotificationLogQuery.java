@@ -0,0 +1,91 @@
+package exercise1_notifications.refactored.logs;
+
+public class NotificationLogQuery {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final String recipient;
+    private final String notificationType;
+    private final Boolean success;
+    private final long fromEpochNanos;
+    private final long toEpochNanos;
+    private final int pageSize;
+    private final int cursor;
+
+    private NotificationLogQuery(String recipient, String notificationType, Boolean success, long fromEpochNanos,
+                                 long toEpochNanos, int pageSize, int cursor) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size must be positive");
+        this.recipient = recipient;
+        this.notificationType = notificationType;
+        this.success = success;
+        this.fromEpochNanos = fromEpochNanos;
+        this.toEpochNanos = toEpochNanos;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    public static NotificationLogQuery all() {
+        return new NotificationLogQuery(null, null, null, Long.MIN_VALUE, Long.MAX_VALUE, DEFAULT_PAGE_SIZE, -1);
+    }
+
+    public NotificationLogQuery forRecipient(String recipient) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery ofType(String notificationType) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery withStatus(boolean success) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery between(long fromEpochNanos, long toEpochNanos) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery limit(int pageSize) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery after(int cursor) {
+        return new NotificationLogQuery(recipient, notificationType, success, fromEpochNanos, toEpochNanos,
+                pageSize, cursor);
+    }
+
+    public NotificationLogQuery next(NotificationLogPage page) {
+        return after(page.getNextCursor());
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getNotificationType() {
+        return notificationType;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public long getFromEpochNanos() {
+        return fromEpochNanos;
+    }
+
+    public long getToEpochNanos() {
+        return toEpochNanos;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,13 @@
+package exercise1_notifications.refactored.logs;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationLogSink {
+
+    void log(NotificationLogEntry logEntry);
+
+    void logAll(Collection<NotificationLogEntry> logEntries);
+
+    List<NotificationLogEntry> getNotificationLogs();
+}
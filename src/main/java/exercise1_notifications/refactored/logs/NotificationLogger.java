@@ -1,25 +1,80 @@
 package exercise1_notifications.refactored.logs;
 
-import java.time.LocalDateTime;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 
-public class NotificationLogger {
-    private final List<NotificationLogEntry> notificationLogs;
+public class NotificationLogger implements NotificationLogSink {
+    private final Deque<NotificationLogEntry> notificationLogs;
+    private final PrintStream out;
+    private final int retentionLimit;
 
     public NotificationLogger() {
-        this.notificationLogs = new ArrayList<>();
+        this(System.out, Integer.MAX_VALUE);
     }
 
+    public NotificationLogger(PrintStream out, int retentionLimit) {
+        if (retentionLimit < 0) throw new IllegalArgumentException("Retention limit must not be negative");
+        this.notificationLogs = new ArrayDeque<>();
+        this.out = out;
+        this.retentionLimit = retentionLimit;
+    }
+
+    @Override
     public void log(NotificationLogEntry logEntry){
-        String log = String.format("[%s] %s - Type: %s, To: %s, Message: %s",
-                logEntry.getDate(), logEntry.isStatus() ? "SUCCESS":"FAILED",
-                logEntry.getNotificationType(), logEntry.getRecipient(), logEntry.getMessage());
+        write(logEntry);
+        retain(List.of(logEntry));
+    }
 
-        System.out.println(log);
-        notificationLogs.add(logEntry);
+    @Override
+    public void logAll(Collection<NotificationLogEntry> logEntries){
+        if (logEntries.isEmpty()) {
+            return;
+        }
+        writeAll(logEntries);
+        retain(logEntries);
     }
+
+    @Override
     public  List<NotificationLogEntry> getNotificationLogs(){
-        return new ArrayList<>(notificationLogs);
+        synchronized (notificationLogs) {
+            return new ArrayList<>(notificationLogs);
+        }
+    }
+
+    protected void write(NotificationLogEntry logEntry) {
+        out.println(format(logEntry));
+    }
+
+    protected void writeAll(Collection<NotificationLogEntry> logEntries) {
+        StringBuilder lines = new StringBuilder(logEntries.size() * 96);
+        for (NotificationLogEntry logEntry : logEntries) {
+            lines.append(format(logEntry)).append(System.lineSeparator());
+        }
+        lines.setLength(lines.length() - System.lineSeparator().length());
+        out.println(lines);
+    }
+
+    private void retain(Collection<NotificationLogEntry> logEntries) {
+        if (retentionLimit == 0) {
+            return;
+        }
+        synchronized (notificationLogs) {
+            for (NotificationLogEntry logEntry : logEntries) {
+                if (notificationLogs.size() == retentionLimit) {
+                    notificationLogs.removeFirst();
+                }
+                notificationLogs.addLast(logEntry);
+            }
+        }
+    }
+
+    private String format(NotificationLogEntry logEntry) {
+        return String.format("[%s] %s - Type: %s, To: %s, Message: %s",
+                logEntry.getDate(), logEntry.isStatus() ? "SUCCESS":"FAILED",
+                logEntry.getNotificationType(), logEntry.getRecipient(), logEntry.getMessage());
     }
 }
@@ -0,0 +1,116 @@
+package exercise1_notifications.refactored.logs;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class NotificationRingBuffer {
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long BLOCKED_PARK_NANOS = 10_000L;
+
+    private final AtomicReferenceArray<NotificationLogEntry> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private final LongAdder dropped;
+
+    public NotificationRingBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.dropped = new LongAdder();
+    }
+
+    public boolean publish(NotificationLogEntry logEntry) {
+        int attempts = 0;
+        while (!offer(logEntry)) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    dropped.increment();
+                    return false;
+                case DROP_OLDEST:
+                    if (poll() != null) {
+                        dropped.increment();
+                    }
+                    break;
+                case BLOCK:
+                    if (++attempts < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    public boolean offer(NotificationLogEntry logEntry) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, logEntry);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    public NotificationLogEntry poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    NotificationLogEntry logEntry = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return logEntry;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,7 @@
+package exercise1_notifications.refactored.logs;
+
+public enum OverflowPolicy {
+    BLOCK,
+    DROP_OLDEST,
+    DROP_NEWEST
+}
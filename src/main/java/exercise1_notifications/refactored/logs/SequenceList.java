@@ -0,0 +1,58 @@
+package exercise1_notifications.refactored.logs;
+
+import java.util.Arrays;
+
+class SequenceList {
+    private int[] sequences;
+    private int head;
+    private int tail;
+
+    SequenceList(int initialCapacity) {
+        this.sequences = new int[Math.max(1, initialCapacity)];
+    }
+
+    void add(int sequence) {
+        if (tail == sequences.length) {
+            if (head > sequences.length >>> 1) {
+                System.arraycopy(sequences, head, sequences, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                sequences = Arrays.copyOf(sequences, sequences.length << 1);
+            }
+        }
+        sequences[tail++] = sequence;
+    }
+
+    void removeFirst() {
+        if (head < tail) {
+            head++;
+        }
+    }
+
+    int get(int index) {
+        return sequences[head + index];
+    }
+
+    int size() {
+        return tail - head;
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    int firstIndexAtLeast(int sequence) {
+        int low = head;
+        int high = tail;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sequences[middle] < sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - head;
+    }
+}
@@ -0,0 +1,40 @@
+package exercise1_notifications.refactored.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+class ChannelMetrics {
+    private static final NotificationPhase[] PHASES = NotificationPhase.values();
+
+    private final String notificationType;
+    private final LongAdder successes;
+    private final LongAdder failures;
+    private final LatencyHistogram[] histograms;
+
+    ChannelMetrics(String notificationType) {
+        this.notificationType = notificationType;
+        this.successes = new LongAdder();
+        this.failures = new LongAdder();
+        this.histograms = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordResult(boolean success) {
+        (success ? successes : failures).increment();
+    }
+
+    void recordLatency(NotificationPhase phase, long nanos) {
+        histograms[phase.ordinal()].recordNanos(nanos);
+    }
+
+    ChannelMetricsSnapshot snapshot() {
+        Map<NotificationPhase, LatencySnapshot> latencies = new EnumMap<>(NotificationPhase.class);
+        for (NotificationPhase phase : PHASES) {
+            latencies.put(phase, histograms[phase.ordinal()].snapshot());
+        }
+        return new ChannelMetricsSnapshot(notificationType, successes.sum(), failures.sum(), latencies);
+    }
+}
@@ -0,0 +1,34 @@
+package exercise1_notifications.refactored.metrics;
+
+import java.util.Map;
+
+public class ChannelMetricsSnapshot {
+    private final String notificationType;
+    private final long successCount;
+    private final long failureCount;
+    private final Map<NotificationPhase, LatencySnapshot> latencies;
+
+    public ChannelMetricsSnapshot(String notificationType, long successCount, long failureCount,
+                                  Map<NotificationPhase, LatencySnapshot> latencies) {
+        this.notificationType = notificationType;
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.latencies = latencies;
+    }
+
+    public String getNotificationType() {
+        return notificationType;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public LatencySnapshot getLatency(NotificationPhase phase) {
+        return latencies.get(phase);
+    }
+}
@@ -0,0 +1,59 @@
+package exercise1_notifications.refactored.metrics;
+
+import exercise1_notifications.refactored.DirectDeliverySender;
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.NotificationSender;
+
+public class InstrumentedNotificationSender implements NotificationSender {
+    private final NotificationSender delegate;
+    private final NotificationMetrics metrics;
+
+    public InstrumentedNotificationSender(NotificationSender delegate, NotificationMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getType() {
+        return delegate.getType();
+    }
+
+    @Override
+    public NotificationResult send(String recipient, String message) {
+        if (!(delegate instanceof DirectDeliverySender)) {
+            long start = System.nanoTime();
+            NotificationResult result = delegate.send(recipient, message);
+            metrics.recordLatency(delegate.getType(), NotificationPhase.DELIVER, System.nanoTime() - start);
+            return result;
+        }
+        if (!validateRecipient(recipient)) {
+            return NotificationResult.INVALID_RECIPIENT;
+        }
+        String formattedMessage = formatMessage(message);
+        long start = System.nanoTime();
+        NotificationResult result = ((DirectDeliverySender) delegate).deliver(recipient, formattedMessage);
+        metrics.recordLatency(delegate.getType(), NotificationPhase.DELIVER, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public NotificationResult sendFormatted(String recipient, String message, String formattedMessage) {
+        return delegate.sendFormatted(recipient, message, formattedMessage);
+    }
+
+    @Override
+    public boolean validateRecipient(String recipient) {
+        long start = System.nanoTime();
+        boolean valid = delegate.validateRecipient(recipient);
+        metrics.recordLatency(delegate.getType(), NotificationPhase.VALIDATE, System.nanoTime() - start);
+        return valid;
+    }
+
+    @Override
+    public String formatMessage(String message) {
+        long start = System.nanoTime();
+        String formatted = delegate.formatMessage(message);
+        metrics.recordLatency(delegate.getType(), NotificationPhase.FORMAT, System.nanoTime() - start);
+        return formatted;
+    }
+}
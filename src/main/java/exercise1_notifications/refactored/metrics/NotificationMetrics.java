@@ -0,0 +1,61 @@
+package exercise1_notifications.refactored.metrics;
+
+import exercise1_notifications.refactored.NotificationSender;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+public class NotificationMetrics {
+    private static final int MAX_CHANNELS = 64;
+    private static final String OTHER_CHANNEL = "OTHER";
+
+    private final Map<String, ChannelMetrics> channels;
+    private final Map<String, ChannelMetrics> aliases;
+
+    public NotificationMetrics() {
+        this.channels = new ConcurrentHashMap<>();
+        this.aliases = new ConcurrentHashMap<>();
+    }
+
+    public void recordResult(String notificationType, boolean success) {
+        channel(notificationType).recordResult(success);
+    }
+
+    public void recordLatency(String notificationType, NotificationPhase phase, long nanos) {
+        channel(notificationType).recordLatency(phase, nanos);
+    }
+
+    public UnaryOperator<NotificationSender> senderDecorator() {
+        return sender -> new InstrumentedNotificationSender(sender, this);
+    }
+
+    public ChannelMetricsSnapshot snapshot(String notificationType) {
+        ChannelMetrics metrics = channels.get(notificationType.toUpperCase());
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    public Map<String, ChannelMetricsSnapshot> snapshot() {
+        Map<String, ChannelMetricsSnapshot> snapshots = new TreeMap<>();
+        channels.forEach((type, metrics) -> snapshots.put(type, metrics.snapshot()));
+        return snapshots;
+    }
+
+    private ChannelMetrics channel(String notificationType) {
+        String key = notificationType == null ? OTHER_CHANNEL : notificationType;
+        ChannelMetrics metrics = aliases.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        String canonical = key.toUpperCase();
+        if (!channels.containsKey(canonical) && channels.size() >= MAX_CHANNELS) {
+            canonical = OTHER_CHANNEL;
+        }
+        metrics = channels.computeIfAbsent(canonical, ChannelMetrics::new);
+        if (aliases.size() < MAX_CHANNELS * 4) {
+            aliases.putIfAbsent(key, metrics);
+        }
+        return metrics;
+    }
+}
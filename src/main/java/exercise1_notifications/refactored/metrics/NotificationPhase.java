@@ -0,0 +1,9 @@
+package exercise1_notifications.refactored.metrics;
+
+public enum NotificationPhase {
+    VALIDATE,
+    FORMAT,
+    SEND,
+    DELIVER,
+    LOG
+}
@@ -0,0 +1,251 @@
+package exercise1_notifications.refactored.outbox;
+
+import exercise1_notifications.refactored.NotificationRequest;
+import exercise1_notifications.refactored.logs.NotificationLogCodec;
+import exercise1_notifications.refactored.logs.NotificationLogEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class NotificationOutbox implements Closeable {
+    public static final String LOG_FILE = "outbox.log";
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private static final byte ENTRY = 1;
+    private static final byte ACK = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+    private static final int FRAME_FIXED_BYTES = Byte.BYTES + Long.BYTES;
+    private static final int MAX_FRAME_BYTES = 16 << 20;
+
+    private final FileChannel channel;
+    private final long compactionThreshold;
+    private final ReentrantLock lock;
+    private final Condition synced;
+    private final BlockingQueue<OutboxEntry> ready;
+    private final AtomicInteger pendingCount;
+    private final LongAdder forceCount;
+    private final int recoveredCount;
+    private long nextSequence;
+    private long position;
+    private long lastWrittenPosition;
+    private long durablePosition;
+    private boolean syncInProgress;
+    private boolean closed;
+
+    public NotificationOutbox(Path directory) throws IOException {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public NotificationOutbox(Path directory, long compactionThreshold) throws IOException {
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.compactionThreshold = compactionThreshold;
+        this.lock = new ReentrantLock();
+        this.synced = lock.newCondition();
+        this.ready = new LinkedBlockingQueue<>();
+        this.pendingCount = new AtomicInteger();
+        this.forceCount = new LongAdder();
+        this.recoveredCount = recover();
+    }
+
+    public long append(NotificationRequest request) throws IOException {
+        NotificationLogEntry record = new NotificationLogEntry(false, request.getNotificationType(),
+                request.getRecipient(), request.getMessage());
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + FRAME_FIXED_BYTES
+                + NotificationLogCodec.maxEncodedSize(record));
+        long sequence;
+        IOException syncFailure = null;
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Outbox is closed");
+            sequence = nextSequence++;
+            frame.position(HEADER_BYTES);
+            frame.put(ENTRY).putLong(sequence);
+            NotificationLogCodec.encode(record, frame);
+            long endPosition = write(frame);
+            pendingCount.incrementAndGet();
+            try {
+                awaitDurable(endPosition);
+            } catch (IOException e) {
+                syncFailure = e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        ready.add(new OutboxEntry(sequence, request));
+        if (syncFailure != null) {
+            throw new OutboxSyncException(sequence, syncFailure);
+        }
+        return sequence;
+    }
+
+    public OutboxEntry poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return ready.poll(timeout, unit);
+    }
+
+    public void acknowledge(long sequence) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + FRAME_FIXED_BYTES);
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Outbox is closed");
+            frame.position(HEADER_BYTES);
+            frame.put(ACK).putLong(sequence);
+            write(frame);
+            if (pendingCount.decrementAndGet() == 0 && position >= compactionThreshold && !syncInProgress) {
+                channel.truncate(0);
+                channel.force(true);
+                forceCount.increment();
+                position = 0;
+                lastWrittenPosition = 0;
+                durablePosition = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public int getRecoveredCount() {
+        return recoveredCount;
+    }
+
+    public long getForceCount() {
+        return forceCount.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (syncInProgress) {
+                synced.awaitUninterruptibly();
+            }
+            channel.force(false);
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long write(ByteBuffer frame) throws IOException {
+        int frameLength = frame.position() - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), HEADER_BYTES, frameLength);
+        frame.putInt(0, frameLength);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        frame.flip();
+        long writePosition = position;
+        while (frame.hasRemaining()) {
+            writePosition += channel.write(frame, writePosition);
+        }
+        position = writePosition;
+        lastWrittenPosition = writePosition;
+        return writePosition;
+    }
+
+    private void awaitDurable(long endPosition) throws IOException {
+        while (durablePosition < endPosition) {
+            if (syncInProgress) {
+                synced.awaitUninterruptibly();
+                continue;
+            }
+            syncInProgress = true;
+            long target = lastWrittenPosition;
+            IOException failure = null;
+            lock.unlock();
+            try {
+                channel.force(false);
+                forceCount.increment();
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                lock.lock();
+                syncInProgress = false;
+                synced.signalAll();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            durablePosition = Math.max(durablePosition, target);
+        }
+    }
+
+    private int recover() throws IOException {
+        Map<Long, OutboxEntry> pending = new LinkedHashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long size = channel.size();
+        long offset = 0;
+        long maxSequence = -1;
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, offset);
+            int frameLength = header.getInt(0);
+            if (frameLength < FRAME_FIXED_BYTES || frameLength > MAX_FRAME_BYTES
+                    || offset + HEADER_BYTES + frameLength > size) {
+                break;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(frameLength);
+            readFully(frame, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), 0, frameLength);
+            if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+                break;
+            }
+            frame.flip();
+            byte kind = frame.get();
+            long sequence = frame.getLong();
+            if (kind == ENTRY) {
+                NotificationLogEntry record = NotificationLogCodec.decode(frame);
+                pending.put(sequence, new OutboxEntry(sequence, NotificationRequest.of(record.getNotificationType(),
+                        record.getRecipient(), record.getMessage())));
+            } else if (kind == ACK) {
+                pending.remove(sequence);
+            } else {
+                break;
+            }
+            maxSequence = Math.max(maxSequence, sequence);
+            offset += HEADER_BYTES + frameLength;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        nextSequence = maxSequence + 1;
+        position = offset;
+        lastWrittenPosition = offset;
+        durablePosition = offset;
+        ready.addAll(pending.values());
+        pendingCount.set(pending.size());
+        return pending.size();
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of outbox log");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package exercise1_notifications.refactored.outbox;
+
+import exercise1_notifications.refactored.NotificationRequest;
+
+public class OutboxEntry {
+    private final long sequence;
+    private final NotificationRequest request;
+
+    public OutboxEntry(long sequence, NotificationRequest request) {
+        this.sequence = sequence;
+        this.request = request;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public NotificationRequest getRequest() {
+        return request;
+    }
+}
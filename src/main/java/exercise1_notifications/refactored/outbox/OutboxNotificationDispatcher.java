@@ -0,0 +1,183 @@
+package exercise1_notifications.refactored.outbox;
+
+import exercise1_notifications.refactored.NotificationRequest;
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.retry.RetryPolicy;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+public class OutboxNotificationDispatcher implements NotificationDispatcher, Closeable {
+    public static final int DEFAULT_MAX_DELIVERY_ATTEMPTS = 16;
+
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final NotificationOutbox outbox;
+    private final NotificationDispatcher delegate;
+    private final RetryPolicy redeliveryPolicy;
+    private final Predicate<String> registeredChannels;
+    private final DelayQueue<DeferredEntry> deferred;
+    private final Thread relay;
+    private final LongAdder relayedCount;
+    private final LongAdder redeliveryCount;
+    private final LongAdder deadLetteredCount;
+    private final LongAdder acknowledgeFailureCount;
+    private volatile boolean running;
+
+    public OutboxNotificationDispatcher(NotificationOutbox outbox, NotificationDispatcher delegate) {
+        this(outbox, delegate, RetryPolicy.exponential(DEFAULT_MAX_DELIVERY_ATTEMPTS, Duration.ofMillis(100),
+                Duration.ofSeconds(30)));
+    }
+
+    public OutboxNotificationDispatcher(NotificationOutbox outbox, NotificationDispatcher delegate,
+                                        RetryPolicy redeliveryPolicy) {
+        this(outbox, delegate, redeliveryPolicy, type -> true);
+    }
+
+    public OutboxNotificationDispatcher(NotificationOutbox outbox, NotificationDispatcher delegate,
+                                        RetryPolicy redeliveryPolicy, Predicate<String> registeredChannels) {
+        this.outbox = outbox;
+        this.delegate = delegate;
+        this.redeliveryPolicy = redeliveryPolicy;
+        this.registeredChannels = registeredChannels;
+        this.deferred = new DelayQueue<>();
+        this.relayedCount = new LongAdder();
+        this.redeliveryCount = new LongAdder();
+        this.deadLetteredCount = new LongAdder();
+        this.acknowledgeFailureCount = new LongAdder();
+        this.running = true;
+        this.relay = new Thread(this::relayLoop, "notification-outbox-relay");
+        this.relay.setDaemon(true);
+        this.relay.start();
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        if (notificationType == null || !registeredChannels.test(notificationType)) {
+            return NotificationResult.UNKNOWN;
+        }
+        try {
+            long sequence = outbox.append(NotificationRequest.of(notificationType, recipient, message));
+            return NotificationResult.success("accepted into outbox #" + sequence);
+        } catch (OutboxSyncException e) {
+            return NotificationResult.success("accepted into outbox #" + e.getSequence() + " without fsync");
+        } catch (IOException e) {
+            return NotificationResult.failure("outbox unavailable: " + e.getMessage());
+        }
+    }
+
+    public long getRelayedCount() {
+        return relayedCount.sum();
+    }
+
+    public long getRedeliveryCount() {
+        return redeliveryCount.sum();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.sum();
+    }
+
+    public long getAcknowledgeFailureCount() {
+        return acknowledgeFailureCount.sum();
+    }
+
+    public int getDeferredCount() {
+        return deferred.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outbox.close();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            DeferredEntry due = deferred.poll();
+            OutboxEntry entry;
+            int attempt;
+            if (due != null) {
+                entry = due.entry;
+                attempt = due.attempt;
+            } else {
+                DeferredEntry next = deferred.peek();
+                long waitNanos = next == null ? IDLE_POLL_NANOS
+                        : Math.min(IDLE_POLL_NANOS, next.getDelay(TimeUnit.NANOSECONDS));
+                try {
+                    entry = outbox.poll(Math.max(0L, waitNanos), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (entry == null) {
+                    continue;
+                }
+                attempt = 1;
+            }
+            relay(entry, attempt);
+        }
+    }
+
+    private void relay(OutboxEntry entry, int attempt) {
+        NotificationRequest request = entry.getRequest();
+        NotificationResult result;
+        try {
+            result = delegate.sendNotification(request.getNotificationType(), request.getRecipient(),
+                    request.getMessage());
+        } catch (Throwable e) {
+            result = NotificationResult.failure("relay failed: " + e);
+        }
+        if (result == null) {
+            result = NotificationResult.failure("relay returned no result");
+        }
+        if (redeliveryPolicy.shouldRetry(result, attempt)) {
+            redeliveryCount.increment();
+            deferred.add(new DeferredEntry(entry, attempt + 1, redeliveryPolicy.backoffNanos(attempt)));
+            return;
+        }
+        try {
+            outbox.acknowledge(entry.getSequence());
+            if (result.isSuccess()) {
+                relayedCount.increment();
+            } else {
+                deadLetteredCount.increment();
+            }
+        } catch (IOException e) {
+            acknowledgeFailureCount.increment();
+        }
+    }
+
+    private static final class DeferredEntry implements Delayed {
+        private final OutboxEntry entry;
+        private final int attempt;
+        private final long dueNanos;
+
+        private DeferredEntry(OutboxEntry entry, int attempt, long delayNanos) {
+            this.entry = entry;
+            this.attempt = attempt;
+            this.dueNanos = System.nanoTime() + delayNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((DeferredEntry) other).dueNanos);
+        }
+    }
+}
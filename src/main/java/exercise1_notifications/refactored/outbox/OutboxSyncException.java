@@ -0,0 +1,18 @@
+package exercise1_notifications.refactored.outbox;
+
+import java.io.IOException;
+
+final class OutboxSyncException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+
+    OutboxSyncException(long sequence, IOException cause) {
+        super("Outbox entry #" + sequence + " written but not forced to disk", cause);
+        this.sequence = sequence;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+}
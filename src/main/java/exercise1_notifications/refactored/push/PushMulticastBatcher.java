@@ -0,0 +1,203 @@
+package exercise1_notifications.refactored.push;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PushMulticastBatcher implements Closeable {
+    private static final PushTokenOutcome NO_OUTCOME = PushTokenOutcome.failed("push provider returned no outcome");
+    private static final PushTokenOutcome CLOSED = PushTokenOutcome.failed("push batcher is closed");
+    private static final int DEFAULT_FLUSH_THREADS = 4;
+
+    private final PushProviderClient client;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor flushExecutor;
+    private final ExecutorService ownedFlushExecutor;
+    private final Map<String, Batch> openBatches;
+    private final LongAdder multicastCalls;
+    private volatile boolean closed;
+
+    public PushMulticastBatcher(PushProviderClient client, int maxBatchSize, Duration maxDelay) {
+        this(client, maxBatchSize, maxDelay, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-multicast");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public PushMulticastBatcher(PushProviderClient client, int maxBatchSize, Duration maxDelay,
+                                ScheduledExecutorService scheduler) {
+        this(client, maxBatchSize, maxDelay, scheduler, null);
+    }
+
+    public PushMulticastBatcher(PushProviderClient client, int maxBatchSize, Duration maxDelay,
+                                ScheduledExecutorService scheduler, Executor flushExecutor) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.scheduler = scheduler;
+        this.ownedFlushExecutor = flushExecutor == null
+                ? Executors.newFixedThreadPool(DEFAULT_FLUSH_THREADS, runnable -> {
+                    Thread thread = new Thread(runnable, "push-multicast-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        this.flushExecutor = flushExecutor == null ? ownedFlushExecutor : flushExecutor;
+        this.openBatches = new ConcurrentHashMap<>();
+        this.multicastCalls = new LongAdder();
+    }
+
+    public PushTokenOutcome sendNow(String deviceToken, String payload) {
+        multicastCalls.increment();
+        try {
+            List<PushTokenOutcome> outcomes = client.sendMulticast(payload, List.of(deviceToken));
+            return outcomes.isEmpty() ? NO_OUTCOME : outcomes.get(0);
+        } catch (IOException | RuntimeException e) {
+            return PushTokenOutcome.failed("push provider error: " + e.getMessage());
+        }
+    }
+
+    public CompletableFuture<PushTokenOutcome> submit(String deviceToken, String payload) {
+        CompletableFuture<PushTokenOutcome> result = new CompletableFuture<>();
+        while (true) {
+            if (closed) {
+                result.complete(CLOSED);
+                return result;
+            }
+            boolean unscheduled = false;
+            Batch batch = openBatches.get(payload);
+            if (batch == null) {
+                Batch created = new Batch(payload);
+                batch = openBatches.putIfAbsent(payload, created);
+                if (batch == null) {
+                    batch = created;
+                    try {
+                        scheduler.schedule(() -> flush(created), maxDelayNanos, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        unscheduled = true;
+                    }
+                }
+            }
+            int added = batch.add(deviceToken, result, maxBatchSize);
+            if (added < 0) {
+                openBatches.remove(payload, batch);
+                continue;
+            }
+            if (added == maxBatchSize || closed || unscheduled) {
+                flush(batch);
+            }
+            return result;
+        }
+    }
+
+    public void flushAll() {
+        for (Batch batch : openBatches.values()) {
+            flush(batch);
+        }
+    }
+
+    public int getOpenBatchCount() {
+        return openBatches.size();
+    }
+
+    public long getMulticastCallCount() {
+        return multicastCalls.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flushAll();
+        scheduler.shutdownNow();
+        if (ownedFlushExecutor != null) {
+            ownedFlushExecutor.shutdown();
+        }
+    }
+
+    private void flush(Batch batch) {
+        Batch.Sealed sealed = batch.seal();
+        if (sealed == null) {
+            return;
+        }
+        openBatches.remove(batch.payload, batch);
+        try {
+            flushExecutor.execute(() -> send(batch.payload, sealed));
+        } catch (RejectedExecutionException e) {
+            send(batch.payload, sealed);
+        }
+    }
+
+    private void send(String payload, Batch.Sealed sealed) {
+        multicastCalls.increment();
+        List<PushTokenOutcome> outcomes;
+        try {
+            outcomes = client.sendMulticast(payload, sealed.tokens);
+        } catch (IOException | RuntimeException e) {
+            PushTokenOutcome failure = PushTokenOutcome.failed("push provider error: " + e.getMessage());
+            for (CompletableFuture<PushTokenOutcome> result : sealed.results) {
+                result.complete(failure);
+            }
+            return;
+        }
+        for (int i = 0; i < sealed.tokens.size(); i++) {
+            sealed.results.get(i).complete(i < outcomes.size() ? outcomes.get(i) : NO_OUTCOME);
+        }
+    }
+
+    private static final class Batch {
+        private final String payload;
+        private List<String> tokens;
+        private List<CompletableFuture<PushTokenOutcome>> results;
+
+        private Batch(String payload) {
+            this.payload = payload;
+            this.tokens = new ArrayList<>();
+            this.results = new ArrayList<>();
+        }
+
+        private synchronized int add(String token, CompletableFuture<PushTokenOutcome> result, int maxSize) {
+            if (tokens == null || tokens.size() >= maxSize) {
+                return -1;
+            }
+            tokens.add(token);
+            results.add(result);
+            return tokens.size();
+        }
+
+        private synchronized Sealed seal() {
+            if (tokens == null) {
+                return null;
+            }
+            Sealed sealed = new Sealed(tokens, results);
+            tokens = null;
+            results = null;
+            return sealed;
+        }
+
+        private static final class Sealed {
+            private final List<String> tokens;
+            private final List<CompletableFuture<PushTokenOutcome>> results;
+
+            private Sealed(List<String> tokens, List<CompletableFuture<PushTokenOutcome>> results) {
+                this.tokens = tokens;
+                this.results = results;
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package exercise1_notifications.refactored.push;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface PushProviderClient {
+    List<PushTokenOutcome> sendMulticast(String payload, List<String> deviceTokens) throws IOException;
+}
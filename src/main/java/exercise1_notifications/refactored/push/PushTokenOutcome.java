@@ -0,0 +1,39 @@
+package exercise1_notifications.refactored.push;
+
+public class PushTokenOutcome {
+    private static final PushTokenOutcome DELIVERED = new PushTokenOutcome(true, false, null);
+
+    private final boolean delivered;
+    private final boolean permanent;
+    private final String reason;
+
+    private PushTokenOutcome(boolean delivered, boolean permanent, String reason) {
+        this.delivered = delivered;
+        this.permanent = permanent;
+        this.reason = reason;
+    }
+
+    public static PushTokenOutcome delivered() {
+        return DELIVERED;
+    }
+
+    public static PushTokenOutcome unregistered(String reason) {
+        return new PushTokenOutcome(false, true, reason);
+    }
+
+    public static PushTokenOutcome failed(String reason) {
+        return new PushTokenOutcome(false, false, reason);
+    }
+
+    public boolean isDelivered() {
+        return delivered;
+    }
+
+    public boolean isPermanent() {
+        return permanent;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
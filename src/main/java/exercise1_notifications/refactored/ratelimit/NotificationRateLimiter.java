@@ -0,0 +1,168 @@
+package exercise1_notifications.refactored.ratelimit;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class NotificationRateLimiter {
+    private static final int DEFAULT_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+    private static final int DEFAULT_MAX_TRACKED_RECIPIENTS = 100_000;
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final LongSupplier nanoClock;
+    private final RateLimit recipientLimit;
+    private final int maxTrackedRecipients;
+    private final Map<String, ChannelLimiter> channels;
+    private final Map<String, TokenBucket> recipients;
+    private final Queue<String> recipientOrder;
+    private final LongAdder recipientRejections;
+
+    public NotificationRateLimiter(RateLimit recipientLimit) {
+        this(recipientLimit, DEFAULT_MAX_TRACKED_RECIPIENTS, System::nanoTime);
+    }
+
+    public NotificationRateLimiter(RateLimit recipientLimit, int maxTrackedRecipients, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.recipientLimit = recipientLimit;
+        this.maxTrackedRecipients = maxTrackedRecipients;
+        this.channels = new ConcurrentHashMap<>();
+        this.recipients = new ConcurrentHashMap<>();
+        this.recipientOrder = new ConcurrentLinkedQueue<>();
+        this.recipientRejections = new LongAdder();
+    }
+
+    public void setChannelLimit(String notificationType, RateLimit rateLimit) {
+        ChannelLimiter limiter = new ChannelLimiter(new StripedTokenBucket(rateLimit, DEFAULT_STRIPES, nanoClock));
+        String channel = notificationType.toUpperCase();
+        channels.keySet().removeIf(key -> key.equalsIgnoreCase(channel));
+        channels.put(channel, limiter);
+    }
+
+    public boolean tryAcquire(String notificationType, String recipient) {
+        ChannelLimiter channel = channelFor(notificationType);
+        TokenBucket recipientBucket = recipientBucketFor(recipient);
+        if (recipientBucket != null && !recipientBucket.tryAcquire()) {
+            recipientRejections.increment();
+            if (channel != null) {
+                channel.rejected.increment();
+            }
+            return false;
+        }
+        if (channel == null) {
+            return true;
+        }
+        if (!channel.permits.tryAcquire()) {
+            if (recipientBucket != null) {
+                recipientBucket.refund();
+            }
+            channel.rejected.increment();
+            return false;
+        }
+        channel.permitted.increment();
+        return true;
+    }
+
+    public long nanosUntilAvailable(String notificationType, String recipient) {
+        long wait = 0;
+        ChannelLimiter channel = channelFor(notificationType);
+        if (channel != null) {
+            wait = channel.permits.nanosUntilAvailable();
+        }
+        TokenBucket recipientBucket = recipientLimit == null ? null : recipients.get(String.valueOf(recipient));
+        if (recipientBucket != null) {
+            wait = Math.max(wait, recipientBucket.nanosUntilAvailable());
+        }
+        return wait;
+    }
+
+    public long getPermittedCount(String notificationType) {
+        ChannelLimiter channel = channelFor(notificationType);
+        return channel == null ? 0 : channel.permitted.sum();
+    }
+
+    public long getRejectedCount(String notificationType) {
+        ChannelLimiter channel = channelFor(notificationType);
+        return channel == null ? 0 : channel.rejected.sum();
+    }
+
+    public int getAvailablePermits(String notificationType) {
+        ChannelLimiter channel = channelFor(notificationType);
+        return channel == null ? Integer.MAX_VALUE : channel.permits.availablePermits();
+    }
+
+    public long getRecipientRejectedCount() {
+        return recipientRejections.sum();
+    }
+
+    public int getTrackedRecipients() {
+        return recipients.size();
+    }
+
+    private ChannelLimiter channelFor(String notificationType) {
+        if (notificationType == null) {
+            return null;
+        }
+        ChannelLimiter channel = channels.get(notificationType);
+        if (channel == null) {
+            channel = channels.get(notificationType.toUpperCase());
+            if (channel != null) {
+                channels.putIfAbsent(notificationType, channel);
+            }
+        }
+        return channel;
+    }
+
+    private TokenBucket recipientBucketFor(String recipient) {
+        if (recipientLimit == null) {
+            return null;
+        }
+        String key = String.valueOf(recipient);
+        TokenBucket bucket = recipients.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (recipients.size() >= maxTrackedRecipients) {
+            evictRecipient();
+        }
+        TokenBucket created = new TokenBucket(recipientLimit, nanoClock);
+        bucket = recipients.putIfAbsent(key, created);
+        if (bucket != null) {
+            return bucket;
+        }
+        recipientOrder.add(key);
+        return created;
+    }
+
+    private void evictRecipient() {
+        for (int sample = 1; sample <= EVICTION_SAMPLES; sample++) {
+            String key = recipientOrder.poll();
+            if (key == null) {
+                return;
+            }
+            TokenBucket bucket = recipients.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            if (bucket.isIdle() || sample == EVICTION_SAMPLES) {
+                recipients.remove(key, bucket);
+                return;
+            }
+            recipientOrder.add(key);
+        }
+    }
+
+    private static final class ChannelLimiter {
+        private final StripedTokenBucket permits;
+        private final LongAdder permitted;
+        private final LongAdder rejected;
+
+        private ChannelLimiter(StripedTokenBucket permits) {
+            this.permits = permits;
+            this.permitted = new LongAdder();
+            this.rejected = new LongAdder();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package exercise1_notifications.refactored.ratelimit;
+
+public class RateLimit {
+    private final double permitsPerSecond;
+    private final int burst;
+
+    public RateLimit(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("Permits per second must be positive");
+        if (burst < 1) throw new IllegalArgumentException("Burst must be at least 1");
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    public static RateLimit perSecond(double permitsPerSecond, int burst) {
+        return new RateLimit(permitsPerSecond, burst);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
@@ -0,0 +1,6 @@
+package exercise1_notifications.refactored.ratelimit;
+
+public enum RateLimitMode {
+    FAIL_FAST,
+    WAIT
+}
@@ -0,0 +1,64 @@
+package exercise1_notifications.refactored.ratelimit;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+public class RateLimitedNotificationDispatcher implements NotificationDispatcher {
+    private static final NotificationResult RATE_LIMITED = NotificationResult.failure("rate limited");
+
+    private final NotificationDispatcher delegate;
+    private final NotificationRateLimiter rateLimiter;
+    private final RateLimitMode mode;
+    private final long maxWaitNanos;
+
+    public RateLimitedNotificationDispatcher(NotificationDispatcher delegate, NotificationRateLimiter rateLimiter) {
+        this(delegate, rateLimiter, RateLimitMode.FAIL_FAST, Duration.ZERO);
+    }
+
+    public RateLimitedNotificationDispatcher(NotificationDispatcher delegate, NotificationRateLimiter rateLimiter,
+                                             RateLimitMode mode, Duration maxWait) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.mode = mode;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        if (!acquire(notificationType, recipient)) {
+            return RATE_LIMITED;
+        }
+        return delegate.sendNotification(notificationType, recipient, message);
+    }
+
+    public NotificationRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    private boolean acquire(String notificationType, String recipient) {
+        if (rateLimiter.tryAcquire(notificationType, recipient)) {
+            return true;
+        }
+        if (mode == RateLimitMode.FAIL_FAST) {
+            return false;
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            long wait = rateLimiter.nanosUntilAvailable(notificationType, recipient);
+            if (remaining <= 0 || wait > remaining) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.max(wait, 1_000L));
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            if (rateLimiter.tryAcquire(notificationType, recipient)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package exercise1_notifications.refactored.ratelimit;
+
+import java.util.function.LongSupplier;
+
+public class StripedTokenBucket {
+    private final TokenBucket[] stripes;
+    private final int mask;
+
+    public StripedTokenBucket(RateLimit rateLimit, int stripeCount, LongSupplier nanoClock) {
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, rateLimit.getBurst())));
+        int baseBurst = rateLimit.getBurst() / stripes;
+        int remainder = rateLimit.getBurst() % stripes;
+        this.stripes = new TokenBucket[stripes];
+        for (int i = 0; i < stripes; i++) {
+            int stripeBurst = baseBurst + (i < remainder ? 1 : 0);
+            double stripeRate = rateLimit.getPermitsPerSecond() * stripeBurst / rateLimit.getBurst();
+            this.stripes[i] = new TokenBucket(RateLimit.perSecond(stripeRate, stripeBurst), nanoClock);
+        }
+        this.mask = stripes - 1;
+    }
+
+    public boolean tryAcquire() {
+        int home = homeStripe();
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[(home + i) & mask].tryAcquire()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long nanosUntilAvailable() {
+        long wait = Long.MAX_VALUE;
+        for (TokenBucket stripe : stripes) {
+            wait = Math.min(wait, stripe.nanosUntilAvailable());
+        }
+        return wait;
+    }
+
+    public int availablePermits() {
+        int available = 0;
+        for (TokenBucket stripe : stripes) {
+            available += stripe.availablePermits();
+        }
+        return available;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mask;
+    }
+}
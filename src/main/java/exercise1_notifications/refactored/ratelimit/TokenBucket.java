@@ -0,0 +1,51 @@
+package exercise1_notifications.refactored.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(RateLimit rateLimit, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = Math.max(1L, Math.round(1_000_000_000d / rateLimit.getPermitsPerSecond()));
+        this.burstToleranceNanos = emissionIntervalNanos * (rateLimit.getBurst() - 1);
+        this.nanoClock = nanoClock;
+        this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long arrival = theoreticalArrival.get();
+            long base = arrival - now > 0 ? arrival : now;
+            if (base - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    public void refund() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    public long nanosUntilAvailable() {
+        long now = nanoClock.getAsLong();
+        return Math.max(0L, theoreticalArrival.get() - now - burstToleranceNanos);
+    }
+
+    public int availablePermits() {
+        long now = nanoClock.getAsLong();
+        long used = Math.max(0L, theoreticalArrival.get() - now);
+        return (int) Math.max(0L, (burstToleranceNanos - used) / emissionIntervalNanos + 1);
+    }
+
+    public boolean isIdle() {
+        return theoreticalArrival.get() - nanoClock.getAsLong() <= 0;
+    }
+}
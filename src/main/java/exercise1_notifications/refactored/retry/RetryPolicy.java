@@ -0,0 +1,47 @@
+package exercise1_notifications.refactored.retry;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final double multiplier;
+    private final long maxDelayNanos;
+    private final Predicate<NotificationResult> retryable;
+
+    public RetryPolicy(int maxAttempts, Duration initialDelay, double multiplier, Duration maxDelay,
+                       Predicate<NotificationResult> retryable) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("Max attempts must be positive");
+        if (multiplier < 1) throw new IllegalArgumentException("Multiplier must be at least 1");
+        this.maxAttempts = maxAttempts;
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.multiplier = multiplier;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.retryable = retryable;
+    }
+
+    public static RetryPolicy exponential(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, initialDelay, 2.0, maxDelay, RetryPolicy::isTransientFailure);
+    }
+
+    public static boolean isTransientFailure(NotificationResult result) {
+        return !result.isSuccess() && !result.isPermanentFailure();
+    }
+
+    public boolean shouldRetry(NotificationResult result, int attempt) {
+        return attempt < maxAttempts && retryable.test(result);
+    }
+
+    public long backoffNanos(int attempt) {
+        double ceiling = Math.min(maxDelayNanos, initialDelayNanos * Math.pow(multiplier, attempt - 1));
+        return ThreadLocalRandom.current().nextLong((long) ceiling / 2, (long) ceiling + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,108 @@
+package exercise1_notifications.refactored.retry;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.logs.NotificationLogEntry;
+import exercise1_notifications.refactored.logs.NotificationLogSink;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+import exercise1_notifications.refactored.timer.HashedTimingWheel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RetryingNotificationDispatcher implements NotificationDispatcher {
+    private final NotificationDispatcher delegate;
+    private final RetryPolicy retryPolicy;
+    private final HashedTimingWheel timingWheel;
+    private final NotificationLogSink notificationLogger;
+    private final LongAdder scheduledRetries;
+    private final LongAdder exhaustedRetries;
+
+    public RetryingNotificationDispatcher(NotificationDispatcher delegate, RetryPolicy retryPolicy,
+                                          HashedTimingWheel timingWheel, NotificationLogSink notificationLogger) {
+        this.delegate = delegate;
+        this.retryPolicy = retryPolicy;
+        this.timingWheel = timingWheel;
+        this.notificationLogger = notificationLogger;
+        this.scheduledRetries = new LongAdder();
+        this.exhaustedRetries = new LongAdder();
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        NotificationResult result = delegate.sendNotification(notificationType, recipient, message);
+        handle(new RetryState(notificationType, recipient, message), result);
+        return result;
+    }
+
+    public CompletableFuture<NotificationResult> sendWithRetries(String notificationType, String recipient,
+                                                                 String message) {
+        RetryState state = new RetryState(notificationType, recipient, message);
+        handle(state, delegate.sendNotification(notificationType, recipient, message));
+        return state.finalResult;
+    }
+
+    public long getPendingRetryCount() {
+        return timingWheel.getPendingCount();
+    }
+
+    public long getScheduledRetryCount() {
+        return scheduledRetries.sum();
+    }
+
+    public long getExhaustedRetryCount() {
+        return exhaustedRetries.sum();
+    }
+
+    private void handle(RetryState state, NotificationResult result) {
+        if (!retryPolicy.shouldRetry(result, state.attempt)) {
+            if (!result.isSuccess() && state.attempt > 1) {
+                exhaustedRetries.increment();
+                notificationLogger.log(new NotificationLogEntry(false, state.notificationType, state.recipient,
+                        String.format("[retry exhausted after %d attempts] %s", state.attempt, state.message)));
+            }
+            state.finalResult.complete(result);
+            return;
+        }
+        long delayNanos = retryPolicy.backoffNanos(state.attempt);
+        state.attempt++;
+        scheduledRetries.increment();
+        try {
+            timingWheel.schedule(() -> retry(state), delayNanos, TimeUnit.NANOSECONDS,
+                    () -> abandon(state, result));
+        } catch (IllegalStateException e) {
+            abandon(state, result);
+        }
+    }
+
+    private void abandon(RetryState state, NotificationResult lastResult) {
+        state.finalResult.completeExceptionally(new IllegalStateException(String.format(
+                "Timing wheel stopped before retry %d: %s", state.attempt, lastResult.getMessage())));
+    }
+
+    private void retry(RetryState state) {
+        NotificationResult result;
+        try {
+            result = delegate.sendNotification(state.notificationType, state.recipient, state.message);
+        } catch (RuntimeException e) {
+            result = NotificationResult.failure("retry failed: " + e.getMessage());
+        }
+        handle(state, result);
+    }
+
+    private static final class RetryState {
+        private final String notificationType;
+        private final String recipient;
+        private final String message;
+        private final CompletableFuture<NotificationResult> finalResult;
+        private int attempt;
+
+        private RetryState(String notificationType, String recipient, String message) {
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.message = message;
+            this.finalResult = new CompletableFuture<>();
+            this.attempt = 1;
+        }
+    }
+}
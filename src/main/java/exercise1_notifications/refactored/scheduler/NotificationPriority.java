@@ -0,0 +1,18 @@
+package exercise1_notifications.refactored.scheduler;
+
+public enum NotificationPriority {
+    CRITICAL(16),
+    HIGH(8),
+    NORMAL(4),
+    BULK(1);
+
+    private final int defaultWeight;
+
+    NotificationPriority(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,225 @@
+package exercise1_notifications.refactored.scheduler;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PriorityDispatchScheduler implements Closeable {
+    private final NotificationDispatcher delegate;
+    private final Lane[] lanes;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Thread[] workers;
+    private int queued;
+    private boolean shutdown;
+
+    public PriorityDispatchScheduler(NotificationDispatcher delegate, int workerCount, int laneCapacity) {
+        this(delegate, workerCount, laneCapacity, defaultWeights());
+    }
+
+    public PriorityDispatchScheduler(NotificationDispatcher delegate, int workerCount, int laneCapacity,
+                                     Map<NotificationPriority, Integer> weights) {
+        if (workerCount < 1) throw new IllegalArgumentException("Worker count must be positive");
+        if (laneCapacity < 1) throw new IllegalArgumentException("Lane capacity must be positive");
+        this.delegate = delegate;
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        NotificationPriority[] priorities = NotificationPriority.values();
+        this.lanes = new Lane[priorities.length];
+        for (NotificationPriority priority : priorities) {
+            int weight = weights.getOrDefault(priority, priority.getDefaultWeight());
+            if (weight < 1) throw new IllegalArgumentException("Lane weight must be positive");
+            lanes[priority.ordinal()] = new Lane(laneCapacity, weight, lock.newCondition());
+        }
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::workLoop, "notification-dispatch-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public CompletableFuture<NotificationResult> submit(NotificationPriority priority, String notificationType,
+                                                        String recipient, String message, Duration timeout) {
+        ScheduledSend send = new ScheduledSend(notificationType, recipient, message);
+        Lane lane = lanes[priority.ordinal()];
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (!shutdown && lane.sends.size() >= lane.capacity) {
+                if (remaining <= 0) {
+                    lane.rejected++;
+                    throw new RejectedExecutionException("Lane " + priority + " is full");
+                }
+                remaining = lane.notFull.awaitNanos(remaining);
+            }
+            if (shutdown) throw new RejectedExecutionException("Scheduler is shut down");
+            lane.sends.addLast(send);
+            queued++;
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for lane " + priority, e);
+        } finally {
+            lock.unlock();
+        }
+        return send.result;
+    }
+
+    public CompletableFuture<NotificationResult> trySubmit(NotificationPriority priority, String notificationType,
+                                                           String recipient, String message) {
+        return submit(priority, notificationType, recipient, message, Duration.ZERO);
+    }
+
+    public int getQueuedCount(NotificationPriority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].sends.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRemainingCapacity(NotificationPriority priority) {
+        lock.lock();
+        try {
+            Lane lane = lanes[priority.ordinal()];
+            return lane.capacity - lane.sends.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount(NotificationPriority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+            for (Lane lane : lanes) {
+                lane.notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            ScheduledSend send;
+            try {
+                send = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (send == null) {
+                return;
+            }
+            try {
+                send.result.complete(delegate.sendNotification(send.notificationType, send.recipient, send.message));
+            } catch (Throwable e) {
+                send.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private ScheduledSend take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                if (shutdown) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            Lane lane = nextLane();
+            queued--;
+            lane.notFull.signal();
+            return lane.sends.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane nextLane() {
+        Lane selected = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            if (lane.sends.isEmpty()) {
+                continue;
+            }
+            lane.currentWeight += lane.weight;
+            totalWeight += lane.weight;
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    private static Map<NotificationPriority, Integer> defaultWeights() {
+        Map<NotificationPriority, Integer> weights = new EnumMap<>(NotificationPriority.class);
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            weights.put(priority, priority.getDefaultWeight());
+        }
+        return weights;
+    }
+
+    private static final class Lane {
+        private final ArrayDeque<ScheduledSend> sends;
+        private final int capacity;
+        private final int weight;
+        private final Condition notFull;
+        private int currentWeight;
+        private long rejected;
+
+        private Lane(int capacity, int weight, Condition notFull) {
+            this.sends = new ArrayDeque<>(Math.min(capacity, 1024));
+            this.capacity = capacity;
+            this.weight = weight;
+            this.notFull = notFull;
+        }
+    }
+
+    private static final class ScheduledSend {
+        private final String notificationType;
+        private final String recipient;
+        private final String message;
+        private final CompletableFuture<NotificationResult> result;
+
+        private ScheduledSend(String notificationType, String recipient, String message) {
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.message = message;
+            this.result = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package exercise1_notifications.refactored.scheduler;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+public class ScheduledNotification {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int FIRED = 2;
+    private static final AtomicIntegerFieldUpdater<ScheduledNotification> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(ScheduledNotification.class, "state");
+
+    private final long id;
+    private final long sendAtMillis;
+    private final String notificationType;
+    private final String recipient;
+    private final String message;
+    private volatile int state;
+
+    ScheduledNotification(long id, long sendAtMillis, String notificationType, String recipient, String message) {
+        this.id = id;
+        this.sendAtMillis = sendAtMillis;
+        this.notificationType = notificationType;
+        this.recipient = recipient;
+        this.message = message;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Instant getSendAt() {
+        return Instant.ofEpochMilli(sendAtMillis);
+    }
+
+    public String getNotificationType() {
+        return notificationType;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isPending() {
+        return state == PENDING;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public boolean isFired() {
+        return state == FIRED;
+    }
+
+    long getSendAtMillis() {
+        return sendAtMillis;
+    }
+
+    boolean markCancelled() {
+        return STATE.compareAndSet(this, PENDING, CANCELLED);
+    }
+
+    boolean markFired() {
+        return STATE.compareAndSet(this, PENDING, FIRED);
+    }
+}
@@ -0,0 +1,273 @@
+package exercise1_notifications.refactored.scheduler;
+
+import exercise1_notifications.refactored.NotificationResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
+import exercise1_notifications.refactored.timer.HierarchicalTimingWheel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+public class ScheduledNotificationService implements NotificationDispatcher, Closeable {
+    private static final long MIN_COMPACTION_RECORDS = 10_000;
+    private static final long MIN_PURGE_CANCELLED = 1_024;
+
+    private final NotificationDispatcher delegate;
+    private final long tickMillis;
+    private final HierarchicalTimingWheel<ScheduledNotification> wheel;
+    private final ScheduledNotificationStore store;
+    private final Executor dispatchExecutor;
+    private final LongSupplier clock;
+    private final ReentrantLock lock;
+    private final ReentrantLock fireLock;
+    private final AtomicLong nextId;
+    private final AtomicLong pendingCount;
+    private final AtomicLong cancelledInWheel;
+    private final AtomicInteger inFlightBatches;
+    private final LongAdder firedCount;
+    private final LongAdder batchCount;
+    private final LongAdder failedCount;
+    private final LongAdder errorCount;
+    private final Thread worker;
+    private volatile boolean running;
+
+    public ScheduledNotificationService(NotificationDispatcher delegate, Duration tick, int wheelSize) {
+        this(delegate, tick, wheelSize, null, Runnable::run, System::currentTimeMillis);
+    }
+
+    public ScheduledNotificationService(NotificationDispatcher delegate, Duration tick, int wheelSize,
+                                        ScheduledNotificationStore store, Executor dispatchExecutor,
+                                        LongSupplier epochMillisClock) {
+        this.delegate = delegate;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, epochMillisClock.getAsLong(),
+                ScheduledNotification::getSendAtMillis);
+        this.store = store;
+        this.dispatchExecutor = dispatchExecutor;
+        this.clock = epochMillisClock;
+        this.lock = new ReentrantLock();
+        this.fireLock = new ReentrantLock();
+        this.nextId = new AtomicLong();
+        this.pendingCount = new AtomicLong();
+        this.cancelledInWheel = new AtomicLong();
+        this.inFlightBatches = new AtomicInteger();
+        this.firedCount = new LongAdder();
+        this.batchCount = new LongAdder();
+        this.failedCount = new LongAdder();
+        this.errorCount = new LongAdder();
+        if (store != null) {
+            recover();
+        }
+        this.running = true;
+        this.worker = new Thread(this::tickLoop, "notification-scheduled-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public NotificationResult sendNotification(String notificationType, String recipient, String message) {
+        return delegate.sendNotification(notificationType, recipient, message);
+    }
+
+    public ScheduledNotification schedule(String notificationType, String recipient, String message,
+                                          Instant sendAt) {
+        if (!running) throw new IllegalStateException("Scheduled notification service is stopped");
+        ScheduledNotification notification = new ScheduledNotification(nextId.incrementAndGet(),
+                sendAt.toEpochMilli(), notificationType, recipient, message);
+        lock.lock();
+        try {
+            if (store != null) {
+                store.scheduled(notification);
+            }
+            wheel.add(notification);
+            pendingCount.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        return notification;
+    }
+
+    public boolean cancel(ScheduledNotification notification) {
+        if (!notification.markCancelled()) {
+            return false;
+        }
+        pendingCount.decrementAndGet();
+        cancelledInWheel.incrementAndGet();
+        completed(notification);
+        return true;
+    }
+
+    public int fireDue() {
+        fireLock.lock();
+        try {
+            return fireDueBatches();
+        } finally {
+            fireLock.unlock();
+        }
+    }
+
+    private int fireDueBatches() {
+        List<List<ScheduledNotification>> dueBatches = new ArrayList<>();
+        int batches;
+        lock.lock();
+        try {
+            batches = wheel.advanceTo(clock.getAsLong(), batch -> {
+                inFlightBatches.incrementAndGet();
+                dueBatches.add(batch);
+            });
+            long cancelled = cancelledInWheel.get();
+            if (cancelled >= MIN_PURGE_CANCELLED && cancelled * 2 > wheel.size()) {
+                cancelledInWheel.addAndGet(-wheel.removeIf(ScheduledNotification::isCancelled));
+            }
+            if (store != null) {
+                store.sync();
+                if (inFlightBatches.get() == 0
+                        && store.getCompletedRecordCount() > Math.max(MIN_COMPACTION_RECORDS, getScheduledCount())) {
+                    store.compact(wheel::forEach);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+            for (List<ScheduledNotification> batch : dueBatches) {
+                dispatchBatch(batch);
+            }
+        }
+        return batches;
+    }
+
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getScheduledCount() {
+        return wheel.size() - cancelledInWheel.get();
+    }
+
+    public long getFiredCount() {
+        return firedCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (store != null) {
+            lock.lock();
+            try {
+                store.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void recover() {
+        try {
+            List<ScheduledNotification> recovered = store.load();
+            long maxId = 0;
+            for (ScheduledNotification notification : recovered) {
+                wheel.add(notification);
+                maxId = Math.max(maxId, notification.getId());
+            }
+            pendingCount.addAndGet(recovered.size());
+            nextId.set(maxId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dispatchBatch(List<ScheduledNotification> batch) {
+        batchCount.increment();
+        try {
+            dispatchExecutor.execute(() -> deliver(batch));
+        } catch (RuntimeException e) {
+            errorCount.increment();
+            deliver(batch);
+        }
+    }
+
+    private void deliver(List<ScheduledNotification> batch) {
+        try {
+            for (ScheduledNotification notification : batch) {
+                if (!notification.markFired()) {
+                    if (notification.isCancelled()) {
+                        cancelledInWheel.decrementAndGet();
+                    }
+                    continue;
+                }
+                pendingCount.decrementAndGet();
+                try {
+                    NotificationResult result = delegate.sendNotification(notification.getNotificationType(),
+                            notification.getRecipient(), notification.getMessage());
+                    if (result == null || !result.isSuccess()) {
+                        failedCount.increment();
+                    }
+                } catch (RuntimeException e) {
+                    failedCount.increment();
+                }
+                firedCount.increment();
+                completed(notification);
+            }
+        } finally {
+            inFlightBatches.decrementAndGet();
+        }
+    }
+
+    private void completed(ScheduledNotification notification) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.completed(notification.getId());
+        } catch (IOException e) {
+            errorCount.increment();
+        }
+    }
+
+    private void tickLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(tickMillis));
+            if (!running) {
+                return;
+            }
+            try {
+                fireDue();
+            } catch (RuntimeException e) {
+                errorCount.increment();
+            }
+        }
+    }
+}
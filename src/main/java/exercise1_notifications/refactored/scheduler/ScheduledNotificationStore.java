@@ -0,0 +1,198 @@
+package exercise1_notifications.refactored.scheduler;
+
+import exercise1_notifications.refactored.logs.NotificationLogCodec;
+import exercise1_notifications.refactored.logs.NotificationLogEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class ScheduledNotificationStore implements Closeable {
+    public static final String STORE_FILE = "scheduled.log";
+
+    private static final byte SCHEDULED = 1;
+    private static final byte COMPLETED = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+    private static final int FRAME_FIXED_BYTES = Byte.BYTES + Long.BYTES;
+    private static final int MAX_FRAME_BYTES = 16 << 20;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final Path file;
+    private final ByteBuffer writeBuffer;
+    private FileChannel channel;
+    private long position;
+    private long completedRecords;
+    private boolean dirty;
+
+    public ScheduledNotificationStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(STORE_FILE);
+        this.writeBuffer = ByteBuffer.allocate(64 * 1024);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    synchronized List<ScheduledNotification> load() throws IOException {
+        Map<Long, ScheduledNotification> live = new LinkedHashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long size = channel.size();
+        long offset = 0;
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, offset);
+            int frameLength = header.getInt(0);
+            if (frameLength < FRAME_FIXED_BYTES || frameLength > MAX_FRAME_BYTES
+                    || offset + HEADER_BYTES + frameLength > size) {
+                break;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(frameLength);
+            readFully(frame, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), 0, frameLength);
+            if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+                break;
+            }
+            frame.flip();
+            byte kind = frame.get();
+            long id = frame.getLong();
+            if (kind == SCHEDULED) {
+                NotificationLogEntry record = NotificationLogCodec.decode(frame);
+                live.put(id, new ScheduledNotification(id, record.getEpochNanos() / NANOS_PER_MILLI,
+                        record.getNotificationType(), record.getRecipient(), record.getMessage()));
+            } else {
+                live.remove(id);
+            }
+            offset += HEADER_BYTES + frameLength;
+        }
+        List<ScheduledNotification> pending = new ArrayList<>(live.values());
+        rewrite(pending::forEach);
+        return pending;
+    }
+
+    synchronized void scheduled(ScheduledNotification notification) throws IOException {
+        NotificationLogEntry record = new NotificationLogEntry(notification.getSendAtMillis() * NANOS_PER_MILLI,
+                false, notification.getNotificationType(), notification.getRecipient(), notification.getMessage());
+        ByteBuffer frame = frameBuffer(FRAME_FIXED_BYTES + NotificationLogCodec.maxEncodedSize(record));
+        frame.put(SCHEDULED).putLong(notification.getId());
+        NotificationLogCodec.encode(record, frame);
+        append(frame);
+    }
+
+    synchronized void completed(long id) throws IOException {
+        ByteBuffer frame = frameBuffer(FRAME_FIXED_BYTES);
+        frame.put(COMPLETED).putLong(id);
+        append(frame);
+        completedRecords++;
+    }
+
+    synchronized long getCompletedRecordCount() {
+        return completedRecords;
+    }
+
+    synchronized void sync() throws IOException {
+        if (dirty) {
+            flushBuffer();
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    synchronized void compact(Consumer<Consumer<ScheduledNotification>> live) throws IOException {
+        flushBuffer();
+        rewrite(live);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private void rewrite(Consumer<Consumer<ScheduledNotification>> live) throws IOException {
+        Path temporary = file.resolveSibling(STORE_FILE + ".tmp");
+        channel.close();
+        channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+        position = 0;
+        IOException[] failure = new IOException[1];
+        live.accept(notification -> {
+            if (failure[0] == null && notification.isPending()) {
+                try {
+                    scheduled(notification);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        flushBuffer();
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        position = channel.size();
+        completedRecords = 0;
+        dirty = false;
+    }
+
+    private ByteBuffer frameBuffer(int frameBytes) throws IOException {
+        if (writeBuffer.remaining() < HEADER_BYTES + frameBytes) {
+            flushBuffer();
+        }
+        ByteBuffer target = HEADER_BYTES + frameBytes <= writeBuffer.capacity()
+                ? writeBuffer : ByteBuffer.allocate(HEADER_BYTES + frameBytes);
+        target.mark();
+        target.position(target.position() + HEADER_BYTES);
+        return target;
+    }
+
+    private void append(ByteBuffer frame) throws IOException {
+        int end = frame.position();
+        frame.reset();
+        int start = frame.position();
+        int frameLength = end - start - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), start + HEADER_BYTES, frameLength);
+        frame.putInt(start, frameLength);
+        frame.putInt(start + Integer.BYTES, (int) crc.getValue());
+        frame.position(end);
+        dirty = true;
+        if (frame != writeBuffer) {
+            frame.flip();
+            flushBuffer();
+            writeFully(frame);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        writeFully(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of scheduled notification store");
+        }
+    }
+}
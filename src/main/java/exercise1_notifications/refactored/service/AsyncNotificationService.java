@@ -0,0 +1,156 @@
+package exercise1_notifications.refactored.service;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+public class AsyncNotificationService {
+    private static final int MAX_LANES = 64;
+
+    private final NotificationDispatcher notificationService;
+    private final Executor executor;
+    private final int defaultConcurrencyLimit;
+    private final Predicate<String> registeredChannels;
+    private final Map<String, ChannelLane> lanes;
+    private final ChannelLane otherLane;
+
+    public AsyncNotificationService(NotificationDispatcher notificationService, Executor executor,
+                                    int defaultConcurrencyLimit) {
+        this(notificationService, executor, defaultConcurrencyLimit, type -> true);
+    }
+
+    public AsyncNotificationService(NotificationDispatcher notificationService, Executor executor,
+                                    int defaultConcurrencyLimit, Predicate<String> registeredChannels) {
+        if (defaultConcurrencyLimit < 1) throw new IllegalArgumentException("Concurrency limit must be positive");
+        this.notificationService = notificationService;
+        this.executor = executor;
+        this.defaultConcurrencyLimit = defaultConcurrencyLimit;
+        this.registeredChannels = registeredChannels;
+        this.lanes = new ConcurrentHashMap<>();
+        this.otherLane = new ChannelLane(defaultConcurrencyLimit);
+    }
+
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String notificationType, String recipient,
+                                                                       String message) {
+        PendingSend pendingSend = new PendingSend(notificationType, recipient, message);
+        ChannelLane lane = laneFor(notificationType);
+        (lane == null ? otherLane : lane).submit(pendingSend);
+        return pendingSend.future;
+    }
+
+    public void setConcurrencyLimit(String notificationType, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Concurrency limit must be positive");
+        ChannelLane lane = laneFor(notificationType);
+        if (lane == null) throw new IllegalArgumentException("Unknown notification type");
+        lane.limit = limit;
+        lane.drain();
+    }
+
+    public int getConcurrencyLimit(String notificationType) {
+        ChannelLane lane = existingLane(notificationType);
+        return lane == null ? 0 : lane.limit;
+    }
+
+    public int getInFlight(String notificationType) {
+        ChannelLane lane = existingLane(notificationType);
+        return lane == null ? 0 : lane.inFlight.get();
+    }
+
+    public int getQueued(String notificationType) {
+        ChannelLane lane = existingLane(notificationType);
+        return lane == null ? 0 : lane.pending.size();
+    }
+
+    private ChannelLane existingLane(String notificationType) {
+        return notificationType == null ? null : lanes.get(notificationType.toUpperCase());
+    }
+
+    private ChannelLane laneFor(String notificationType) {
+        ChannelLane lane = existingLane(notificationType);
+        if (lane != null || notificationType == null || !registeredChannels.test(notificationType)) {
+            return lane;
+        }
+        String key = notificationType.toUpperCase();
+        if (!lanes.containsKey(key) && lanes.size() >= MAX_LANES) {
+            return null;
+        }
+        return lanes.computeIfAbsent(key, type -> new ChannelLane(defaultConcurrencyLimit));
+    }
+
+    private final class PendingSend implements Runnable {
+        private final String notificationType;
+        private final String recipient;
+        private final String message;
+        private final CompletableFuture<NotificationResult> future;
+
+        private PendingSend(String notificationType, String recipient, String message) {
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.message = message;
+            this.future = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(notificationService.sendNotification(notificationType, recipient, message));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final class ChannelLane {
+        private final Queue<PendingSend> pending;
+        private final AtomicInteger inFlight;
+        private volatile int limit;
+
+        private ChannelLane(int limit) {
+            this.pending = new ConcurrentLinkedQueue<>();
+            this.inFlight = new AtomicInteger();
+            this.limit = limit;
+        }
+
+        private void submit(PendingSend pendingSend) {
+            pending.add(pendingSend);
+            drain();
+        }
+
+        private void drain() {
+            while (!pending.isEmpty()) {
+                int current = inFlight.get();
+                if (current >= limit) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                PendingSend next = pending.poll();
+                if (next == null) {
+                    inFlight.decrementAndGet();
+                    continue;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            next.run();
+                        } finally {
+                            inFlight.decrementAndGet();
+                            drain();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.decrementAndGet();
+                    next.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package exercise1_notifications.refactored.service;
+
+public class BroadcastResult {
+    private final long sentCount;
+    private final long failedCount;
+
+    public BroadcastResult(long sentCount, long failedCount) {
+        this.sentCount = sentCount;
+        this.failedCount = failedCount;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getTotalCount() {
+        return sentCount + failedCount;
+    }
+}
@@ -0,0 +1,85 @@
+package exercise1_notifications.refactored.service;
+
+import exercise1_notifications.refactored.NotificationRequest;
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class FanOut {
+    private final NotificationRequest[] requests;
+    private final AtomicReferenceArray<NotificationResult> results;
+    private final int requiredSuccesses;
+    private final int tolerableFailures;
+    private final AtomicInteger successes;
+    private final AtomicInteger failures;
+    private final CompletableFuture<FanOutResult> future;
+
+    FanOut(NotificationRequest[] requests, FanOutPolicy policy) {
+        this.requests = requests;
+        this.results = new AtomicReferenceArray<>(requests.length);
+        this.requiredSuccesses = policy.requiredSuccesses(requests.length);
+        this.tolerableFailures = requests.length - requiredSuccesses;
+        this.successes = new AtomicInteger();
+        this.failures = new AtomicInteger();
+        this.future = new CompletableFuture<>();
+    }
+
+    CompletableFuture<FanOutResult> start(NotificationDispatcher dispatcher, Executor executor) {
+        if (requiredSuccesses == 0 || tolerableFailures < 0) {
+            complete(requiredSuccesses == 0);
+            return future;
+        }
+        for (int i = 0; i < requests.length; i++) {
+            int branch = i;
+            try {
+                executor.execute(() -> run(branch, dispatcher));
+            } catch (RejectedExecutionException e) {
+                record(branch, NotificationResult.failure("rejected"));
+            }
+        }
+        return future;
+    }
+
+    private void run(int branch, NotificationDispatcher dispatcher) {
+        if (future.isDone()) {
+            return;
+        }
+        NotificationRequest request = requests[branch];
+        NotificationResult result;
+        try {
+            result = dispatcher.sendNotification(request.getNotificationType(), request.getRecipient(),
+                    request.getMessage());
+        } catch (RuntimeException e) {
+            result = NotificationResult.UNKNOWN;
+        }
+        record(branch, result);
+    }
+
+    private void record(int branch, NotificationResult result) {
+        results.set(branch, result);
+        if (result.isSuccess()) {
+            if (successes.incrementAndGet() == requiredSuccesses) {
+                complete(true);
+            }
+        } else if (failures.incrementAndGet() == tolerableFailures + 1) {
+            complete(false);
+        }
+    }
+
+    private void complete(boolean success) {
+        if (future.isDone()) {
+            return;
+        }
+        NotificationResult[] completed = new NotificationResult[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            completed[i] = results.get(i);
+        }
+        future.complete(new FanOutResult(success, successes.get(), Collections.unmodifiableList(Arrays.asList(completed))));
+    }
+}
@@ -0,0 +1,28 @@
+package exercise1_notifications.refactored.service;
+
+public class FanOutPolicy {
+    private static final int ALL = -1;
+
+    private final int requiredSuccesses;
+
+    private FanOutPolicy(int requiredSuccesses) {
+        this.requiredSuccesses = requiredSuccesses;
+    }
+
+    public static FanOutPolicy firstSuccess() {
+        return new FanOutPolicy(1);
+    }
+
+    public static FanOutPolicy allSuccess() {
+        return new FanOutPolicy(ALL);
+    }
+
+    public static FanOutPolicy quorum(int requiredSuccesses) {
+        if (requiredSuccesses < 1) throw new IllegalArgumentException("Quorum must be positive");
+        return new FanOutPolicy(requiredSuccesses);
+    }
+
+    int requiredSuccesses(int channels) {
+        return requiredSuccesses == ALL ? channels : requiredSuccesses;
+    }
+}
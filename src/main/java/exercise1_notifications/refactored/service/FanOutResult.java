@@ -0,0 +1,29 @@
+package exercise1_notifications.refactored.service;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.util.List;
+
+public class FanOutResult {
+    private final boolean success;
+    private final int successCount;
+    private final List<NotificationResult> results;
+
+    public FanOutResult(boolean success, int successCount, List<NotificationResult> results) {
+        this.success = success;
+        this.successCount = successCount;
+        this.results = results;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public List<NotificationResult> getResults() {
+        return results;
+    }
+}
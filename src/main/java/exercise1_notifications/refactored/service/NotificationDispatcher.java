@@ -0,0 +1,8 @@
+package exercise1_notifications.refactored.service;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+public interface NotificationDispatcher {
+
+    NotificationResult sendNotification(String notificationType, String recipient, String message);
+}
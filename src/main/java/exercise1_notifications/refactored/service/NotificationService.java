@@ -1,36 +1,208 @@
 package exercise1_notifications.refactored.service;
 
+import exercise1_notifications.refactored.NotificationRequest;
 import exercise1_notifications.refactored.NotificationResult;
 import exercise1_notifications.refactored.NotificationSender;
 import exercise1_notifications.refactored.factory.NotificationSenderFactory;
 import exercise1_notifications.refactored.logs.NotificationLogEntry;
-import exercise1_notifications.refactored.logs.NotificationLogger;
+import exercise1_notifications.refactored.logs.NotificationLogSink;
+import exercise1_notifications.refactored.metrics.NotificationMetrics;
+import exercise1_notifications.refactored.metrics.NotificationPhase;
 
-public class NotificationService {
-    private final NotificationLogger notificationLogger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+public class NotificationService implements NotificationDispatcher {
+    private static final int BROADCAST_LOG_CHUNK = 1024;
+
+    private final NotificationLogSink notificationLogger;
     private final NotificationSenderFactory senderFactory;
+    private final NotificationMetrics metrics;
+
+    public NotificationService(NotificationSenderFactory senderFactory, NotificationLogSink notificationLogger) {
+        this(senderFactory, notificationLogger, new NotificationMetrics());
+    }
 
-    public NotificationService(NotificationSenderFactory senderFactory, NotificationLogger notificationLogger) {
+    public NotificationService(NotificationSenderFactory senderFactory, NotificationLogSink notificationLogger,
+                               NotificationMetrics metrics) {
         this.notificationLogger = notificationLogger;
         this.senderFactory = senderFactory;
+        this.metrics = metrics;
     }
 
+    public NotificationMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
     public NotificationResult sendNotification(String notificationType, String recipient,
                                                String message) {
-        NotificationResult result =null;
+        NotificationSender sender;
+        try {
+            sender = senderFactory.createSender(notificationType);
+        } catch (Exception e) {
+            sender = null;
+        }
+        return dispatch(notificationType, sender, recipient, message);
+    }
+
+    public int resolveChannel(String notificationType) {
+        return senderFactory.channelId(notificationType);
+    }
+
+    public NotificationResult sendNotification(int channelId, String recipient, String message) {
+        String notificationType;
+        NotificationSender sender;
+        try {
+            notificationType = senderFactory.channelName(channelId);
+            sender = senderFactory.createSender(channelId);
+        } catch (Exception e) {
+            notificationType = String.valueOf(channelId);
+            sender = null;
+        }
+        return dispatch(notificationType, sender, recipient, message);
+    }
+
+    public List<NotificationResult> sendBatch(Collection<NotificationRequest> requests) {
+        NotificationRequest[] batch = requests.toArray(new NotificationRequest[0]);
+        NotificationResult[] results = new NotificationResult[batch.length];
+        NotificationLogEntry[] logEntries = new NotificationLogEntry[batch.length];
+        Map<String, NotificationSender> sendersByType = new HashMap<>();
+
+        for (int i = 0; i < batch.length; i++) {
+            NotificationRequest request = batch[i];
+            NotificationSender sender = resolveSender(sendersByType, request.getNotificationType());
+            NotificationResult result = send(sender, request);
+            metrics.recordResult(metricsKey(sender, request.getNotificationType()), result.isSuccess());
+            results[i] = result;
+            logEntries[i] = new NotificationLogEntry(result.isSuccess(), request.getNotificationType(),
+                    request.getRecipient(), request.getMessage());
+        }
+
+        notificationLogger.logAll(Arrays.asList(logEntries));
+        return Arrays.asList(results);
+    }
+
+    public BroadcastResult broadcast(String notificationType, String message, Iterable<String> recipients) {
+        return broadcast(notificationType, message, recipients, (recipient, result) -> { });
+    }
+
+    public BroadcastResult broadcast(String notificationType, String message, Iterable<String> recipients,
+                                     BiConsumer<String, NotificationResult> listener) {
+        NotificationSender sender;
+        String formattedMessage;
         try {
-            NotificationSender sender = senderFactory.createSender(notificationType);
-             result =sender.send(recipient,message);
+            sender = senderFactory.createSender(notificationType);
+            formattedMessage = sender.formatMessage(message);
+        } catch (Exception e) {
+            sender = null;
+            formattedMessage = null;
+        }
 
-            notificationLogger.log(new NotificationLogEntry(result.isSuccess(),notificationType
-            , recipient, message));
+        long sent = 0;
+        long failed = 0;
+        List<NotificationLogEntry> logEntries = new ArrayList<>(BROADCAST_LOG_CHUNK);
+        for (String recipient : recipients) {
+            NotificationResult result = sendFormatted(sender, recipient, message, formattedMessage);
+            if (result.isSuccess()) {
+                sent++;
+            } else {
+                failed++;
+            }
+            metrics.recordResult(metricsKey(sender, notificationType), result.isSuccess());
+            listener.accept(recipient, result);
+            logEntries.add(new NotificationLogEntry(result.isSuccess(), notificationType, recipient, message));
+            if (logEntries.size() == BROADCAST_LOG_CHUNK) {
+                notificationLogger.logAll(logEntries);
+                logEntries = new ArrayList<>(BROADCAST_LOG_CHUNK);
+            }
+        }
+        notificationLogger.logAll(logEntries);
+        return new BroadcastResult(sent, failed);
+    }
+
+    public CompletableFuture<FanOutResult> fanOut(Collection<NotificationRequest> requests, FanOutPolicy policy,
+                                                  Executor executor) {
+        return new FanOut(requests.toArray(new NotificationRequest[0]), policy).start(this, executor);
+    }
+
+    private NotificationResult dispatch(String notificationType, NotificationSender sender, String recipient,
+                                        String message) {
+        String metricsKey = metricsKey(sender, notificationType);
+        if (sender == null) {
+            log(metricsKey, new NotificationLogEntry(false, notificationType, recipient, message));
+            return NotificationResult.UNKNOWN;
+        }
+        try {
+            long start = System.nanoTime();
+            NotificationResult result = sender.send(recipient, message);
+            metrics.recordLatency(metricsKey, NotificationPhase.SEND, System.nanoTime() - start);
+            log(metricsKey, new NotificationLogEntry(result.isSuccess(), notificationType, recipient, message));
             return result;
         } catch (Exception e) {
-            notificationLogger.log(new NotificationLogEntry(false,
-                    notificationType, recipient, message));
-            result= NotificationResult.failure("unknown");
+            log(metricsKey, new NotificationLogEntry(false, notificationType, recipient, message));
+            return NotificationResult.UNKNOWN;
         }
-        return result;
+    }
 
+    private void log(String metricsKey, NotificationLogEntry entry) {
+        metrics.recordResult(metricsKey, entry.isStatus());
+        long start = System.nanoTime();
+        notificationLogger.log(entry);
+        metrics.recordLatency(metricsKey, NotificationPhase.LOG, System.nanoTime() - start);
+    }
+
+    private static String metricsKey(NotificationSender sender, String notificationType) {
+        return sender == null ? notificationType : sender.getType();
+    }
+
+    private NotificationResult sendFormatted(NotificationSender sender, String recipient, String message,
+                                             String formattedMessage) {
+        if (sender == null) {
+            return NotificationResult.UNKNOWN;
+        }
+        long start = System.nanoTime();
+        try {
+            return sender.sendFormatted(recipient, message, formattedMessage);
+        } catch (Exception e) {
+            return NotificationResult.UNKNOWN;
+        } finally {
+            metrics.recordLatency(sender.getType(), NotificationPhase.SEND, System.nanoTime() - start);
+        }
+    }
+
+    private NotificationSender resolveSender(Map<String, NotificationSender> sendersByType, String notificationType) {
+        if (sendersByType.containsKey(notificationType)) {
+            return sendersByType.get(notificationType);
+        }
+        NotificationSender sender;
+        try {
+            sender = senderFactory.createSender(notificationType);
+        } catch (Exception e) {
+            sender = null;
+        }
+        sendersByType.put(notificationType, sender);
+        return sender;
+    }
+
+    private NotificationResult send(NotificationSender sender, NotificationRequest request) {
+        if (sender == null) {
+            return NotificationResult.UNKNOWN;
+        }
+        long start = System.nanoTime();
+        try {
+            return sender.send(request.getRecipient(), request.getMessage());
+        } catch (Exception e) {
+            return NotificationResult.UNKNOWN;
+        } finally {
+            metrics.recordLatency(sender.getType(), NotificationPhase.SEND, System.nanoTime() - start);
+        }
     }
 }
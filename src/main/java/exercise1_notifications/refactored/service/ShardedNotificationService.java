@@ -0,0 +1,195 @@
+package exercise1_notifications.refactored.service;
+
+import exercise1_notifications.refactored.NotificationResult;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ShardedNotificationService implements Closeable {
+    private static final long ENQUEUE_RECHECK_MILLIS = 50;
+
+    private final NotificationDispatcher notificationService;
+    private final Shard[] shards;
+    private volatile boolean closed;
+
+    public ShardedNotificationService(NotificationDispatcher notificationService, int shardCount, int queueCapacity) {
+        if (shardCount < 1) throw new IllegalArgumentException("Shard count must be positive");
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be positive");
+        this.notificationService = notificationService;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    public CompletableFuture<NotificationResult> sendNotificationAsync(String notificationType, String recipient,
+                                                                       String message) {
+        PendingSend pendingSend = new PendingSend(notificationType, recipient, message);
+        if (closed) throw new RejectedExecutionException("Sharded service is closed");
+        shards[shardFor(recipient)].enqueue(pendingSend);
+        return pendingSend.future;
+    }
+
+    public int shardFor(String recipient) {
+        if (recipient == null) {
+            return 0;
+        }
+        int hash = recipient.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash * 0x9E3779B9, shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getQueueDepth(int shard) {
+        return shards[shard].queue.size();
+    }
+
+    public int[] getQueueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].queue.size();
+        }
+        return depths;
+    }
+
+    public int getPeakQueueDepth(int shard) {
+        return shards[shard].peakDepth.get();
+    }
+
+    public long getProcessedCount(int shard) {
+        return shards[shard].processed.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Shard {
+        private final BlockingQueue<PendingSend> queue;
+        private final AtomicInteger peakDepth;
+        private final LongAdder processed;
+        private final Thread worker;
+        private volatile boolean stopped;
+
+        private Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.peakDepth = new AtomicInteger();
+            this.processed = new LongAdder();
+            this.worker = new Thread(this::work, "notification-shard-" + index);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        private void enqueue(PendingSend pendingSend) {
+            try {
+                while (!queue.offer(pendingSend, ENQUEUE_RECHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (stopped) {
+                        pendingSend.reject();
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingSend.future.completeExceptionally(e);
+                return;
+            }
+            if (stopped && queue.remove(pendingSend)) {
+                pendingSend.reject();
+                return;
+            }
+            int depth = queue.size();
+            if (depth > peakDepth.get()) {
+                peakDepth.accumulateAndGet(depth, Math::max);
+            }
+        }
+
+        private void stop() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(PendingSend.POISON);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void work() {
+            while (true) {
+                PendingSend pendingSend;
+                try {
+                    pendingSend = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pendingSend == PendingSend.POISON) {
+                    stopped = true;
+                    rejectRemaining();
+                    return;
+                }
+                pendingSend.run(notificationService);
+                processed.increment();
+            }
+        }
+
+        private void rejectRemaining() {
+            PendingSend pendingSend;
+            while ((pendingSend = queue.poll()) != null) {
+                pendingSend.reject();
+            }
+        }
+    }
+
+    private static final class PendingSend {
+        private static final PendingSend POISON = new PendingSend(null, null, null);
+
+        private final String notificationType;
+        private final String recipient;
+        private final String message;
+        private final CompletableFuture<NotificationResult> future;
+
+        private PendingSend(String notificationType, String recipient, String message) {
+            this.notificationType = notificationType;
+            this.recipient = recipient;
+            this.message = message;
+            this.future = new CompletableFuture<>();
+        }
+
+        private void reject() {
+            future.completeExceptionally(new RejectedExecutionException("Sharded service is closed"));
+        }
+
+        private void run(NotificationDispatcher notificationService) {
+            try {
+                future.complete(notificationService.sendNotification(notificationType, recipient, message));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
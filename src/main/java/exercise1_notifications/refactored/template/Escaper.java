@@ -0,0 +1,7 @@
+package exercise1_notifications.refactored.template;
+
+@FunctionalInterface
+public interface Escaper {
+
+    void escape(String value, StringBuilder out);
+}
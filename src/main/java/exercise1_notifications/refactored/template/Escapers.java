@@ -0,0 +1,38 @@
+package exercise1_notifications.refactored.template;
+
+public final class Escapers {
+    public static final Escaper NONE = (value, out) -> out.append(value);
+    public static final Escaper HTML = Escapers::escapeHtml;
+
+    private Escapers() {
+    }
+
+    private static void escapeHtml(String value, StringBuilder out) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement;
+            switch (value.charAt(i)) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                case '\'':
+                    replacement = "&#39;";
+                    break;
+                default:
+                    continue;
+            }
+            out.append(value, start, i).append(replacement);
+            start = i + 1;
+        }
+        out.append(value, start, value.length());
+    }
+}
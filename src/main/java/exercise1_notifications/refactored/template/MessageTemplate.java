@@ -0,0 +1,110 @@
+package exercise1_notifications.refactored.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class MessageTemplate {
+    public static final String MESSAGE_PLACEHOLDER = "message";
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final String ELLIPSIS = "...";
+    private static final int MAX_REUSED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final Escaper escaper;
+    private final int maxLength;
+    private final boolean passthrough;
+
+    private MessageTemplate(String[] literals, String[] placeholders, Escaper escaper, int maxLength) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.escaper = escaper;
+        this.maxLength = maxLength;
+        this.passthrough = escaper == Escapers.NONE && placeholders.length == 1
+                && MESSAGE_PLACEHOLDER.equals(placeholders[0]) && literals[0].isEmpty() && literals[1].isEmpty();
+    }
+
+    public static MessageTemplate compile(String source, Escaper escaper) {
+        return compile(source, escaper, UNLIMITED);
+    }
+
+    public static MessageTemplate compile(String source, Escaper escaper, int maxLength) {
+        if (maxLength <= ELLIPSIS.length()) throw new IllegalArgumentException("Max length too small");
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            placeholders.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]),
+                escaper, maxLength);
+    }
+
+    public String render(String message) {
+        if (passthrough && message != null && message.length() <= maxLength) {
+            return message;
+        }
+        StringBuilder buffer = acquireBuffer();
+        for (int i = 0; i < placeholders.length; i++) {
+            buffer.append(literals[i]);
+            appendValue(MESSAGE_PLACEHOLDER.equals(placeholders[i]) ? message : null, buffer);
+        }
+        buffer.append(literals[placeholders.length]);
+        return finish(buffer);
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder buffer = acquireBuffer();
+        for (int i = 0; i < placeholders.length; i++) {
+            buffer.append(literals[i]);
+            appendValue(values.get(placeholders[i]), buffer);
+        }
+        buffer.append(literals[placeholders.length]);
+        return finish(buffer);
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    private void appendValue(String value, StringBuilder buffer) {
+        if (value != null) {
+            escaper.escape(value, buffer);
+        }
+    }
+
+    private StringBuilder acquireBuffer() {
+        StringBuilder buffer = BUFFER.get();
+        if (buffer.capacity() > MAX_REUSED_BUFFER) {
+            buffer = new StringBuilder(256);
+            BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private String finish(StringBuilder buffer) {
+        if (buffer.length() > maxLength) {
+            int cut = maxLength - ELLIPSIS.length();
+            if (Character.isLowSurrogate(buffer.charAt(cut)) && Character.isHighSurrogate(buffer.charAt(cut - 1))) {
+                cut--;
+            }
+            buffer.setLength(cut);
+            buffer.append(ELLIPSIS);
+        }
+        return buffer.toString();
+    }
+}
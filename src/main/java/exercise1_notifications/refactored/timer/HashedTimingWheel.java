@@ -0,0 +1,266 @@
+package exercise1_notifications.refactored.timer;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class HashedTimingWheel implements Closeable {
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor taskExecutor;
+    private final Queue<Timeout> pendingTimeouts;
+    private final AtomicLong pendingCount;
+    private final LongAdder rejectedCount;
+    private final LongAdder failedCount;
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running;
+    private long tick;
+
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor taskExecutor) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("Tick duration must be positive");
+        if (wheelSize < 1) throw new IllegalArgumentException("Wheel size must be positive");
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.taskExecutor = taskExecutor;
+        this.pendingTimeouts = new ConcurrentLinkedQueue<>();
+        this.pendingCount = new AtomicLong();
+        this.rejectedCount = new LongAdder();
+        this.failedCount = new LongAdder();
+        this.startNanos = System.nanoTime();
+        this.running = true;
+        this.worker = new Thread(this::run, "notification-timing-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public WheelTimeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, delay, unit, null);
+    }
+
+    public WheelTimeout schedule(Runnable task, long delay, TimeUnit unit, Runnable onClose) {
+        if (!running) throw new IllegalStateException("Timing wheel is stopped");
+        long deadline = System.nanoTime() - startNanos + Math.max(0L, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, onClose, deadline);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        if (!running && pendingTimeouts.remove(timeout)) {
+            abandon(timeout);
+        }
+        return timeout;
+    }
+
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Bucket bucket : wheel) {
+            bucket.abandonAll();
+        }
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            abandon(timeout);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (!running) {
+                return;
+            }
+            transferPendingTimeouts();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return deadline;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+        return deadline;
+    }
+
+    private void transferPendingTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                pendingCount.decrementAndGet();
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void runExpired(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            runInline(timeout.task);
+        } catch (RuntimeException e) {
+            failedCount.increment();
+        }
+    }
+
+    private void runInline(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            failedCount.increment();
+        }
+    }
+
+    private void abandon(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.CANCELLED) && timeout.onClose != null) {
+            runInline(timeout.onClose);
+        }
+    }
+
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                    pendingCount.decrementAndGet();
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        runExpired(timeout);
+                    } else {
+                        wheel[(int) ((tick + 1) & mask)].add(timeout);
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void abandonAll() {
+            while (head != null) {
+                Timeout timeout = head;
+                remove(timeout);
+                abandon(timeout);
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    private static final class Timeout implements WheelTimeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final Runnable onClose;
+        private final long deadline;
+        private final AtomicInteger state;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(Runnable task, Runnable onClose, long deadline) {
+            this.task = task;
+            this.onClose = onClose;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(PENDING);
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package exercise1_notifications.refactored.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+public class HierarchicalTimingWheel<E> {
+    private static final int MAX_LEVELS = 16;
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final ToLongFunction<E> deadlineOf;
+    private final List<List<E>[]> levels;
+    private final List<E> overdue;
+    private long currentMillis;
+    private long size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis, ToLongFunction<E> deadlineOf) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("Tick duration must be positive");
+        if (wheelSize < 2) throw new IllegalArgumentException("Wheel size must be at least 2");
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.deadlineOf = deadlineOf;
+        this.levels = new ArrayList<>();
+        this.overdue = new ArrayList<>();
+        this.currentMillis = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    public void add(E element) {
+        place(element);
+        size++;
+    }
+
+    public int advanceTo(long nowMillis, Consumer<List<E>> onTick) {
+        int batches = 0;
+        if (!overdue.isEmpty()) {
+            batches += fire(new ArrayList<>(overdue), onTick);
+            overdue.clear();
+        }
+        if (size == 0 && nowMillis - currentMillis >= tickMillis) {
+            currentMillis = nowMillis - Math.floorMod(nowMillis, tickMillis);
+            return batches;
+        }
+        while (nowMillis - currentMillis >= tickMillis) {
+            List<E> due = take(0, currentMillis / tickMillis);
+            currentMillis += tickMillis;
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                long levelTick = levelTick(level);
+                if (currentMillis % levelTick == 0) {
+                    List<E> cascaded = take(level, currentMillis / levelTick);
+                    if (cascaded != null) {
+                        for (E element : cascaded) {
+                            place(element);
+                        }
+                    }
+                }
+            }
+            if (!overdue.isEmpty()) {
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.addAll(overdue);
+                overdue.clear();
+            }
+            if (due != null) {
+                batches += fire(due, onTick);
+            }
+            if (size == 0) {
+                currentMillis = nowMillis - Math.floorMod(nowMillis, tickMillis);
+                break;
+            }
+        }
+        return batches;
+    }
+
+    public void forEach(Consumer<E> consumer) {
+        overdue.forEach(consumer);
+        for (List<E>[] buckets : levels) {
+            for (List<E> bucket : buckets) {
+                if (bucket != null) {
+                    bucket.forEach(consumer);
+                }
+            }
+        }
+    }
+
+    public long removeIf(Predicate<? super E> filter) {
+        long removed = removeFrom(overdue, filter);
+        for (List<E>[] buckets : levels) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] != null) {
+                    removed += removeFrom(buckets[i], filter);
+                    if (buckets[i].isEmpty()) {
+                        buckets[i] = null;
+                    }
+                }
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    public long getCurrentMillis() {
+        return currentMillis;
+    }
+
+    private int fire(List<E> due, Consumer<List<E>> onTick) {
+        size -= due.size();
+        onTick.accept(due);
+        return 1;
+    }
+
+    private void place(E element) {
+        long deadline = deadlineOf.applyAsLong(element);
+        if (deadline < currentMillis) {
+            overdue.add(element);
+            return;
+        }
+        for (int level = 0; level < MAX_LEVELS; level++) {
+            long levelTick = levelTick(level);
+            long slot = deadline / levelTick;
+            if (slot - currentMillis / levelTick < wheelSize || level == MAX_LEVELS - 1) {
+                bucket(level, slot).add(element);
+                return;
+            }
+        }
+    }
+
+    private long levelTick(int level) {
+        long levelTick = tickMillis;
+        for (int i = 0; i < level; i++) {
+            if (levelTick > Long.MAX_VALUE / wheelSize) {
+                return Long.MAX_VALUE;
+            }
+            levelTick *= wheelSize;
+        }
+        return levelTick;
+    }
+
+    private long removeFrom(List<E> bucket, Predicate<? super E> filter) {
+        int before = bucket.size();
+        bucket.removeIf(filter);
+        return before - bucket.size();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<E> bucket(int level, long slot) {
+        while (levels.size() <= level) {
+            levels.add((List<E>[]) new List[wheelSize]);
+        }
+        List<E>[] buckets = levels.get(level);
+        int index = (int) Math.floorMod(slot, (long) wheelSize);
+        if (buckets[index] == null) {
+            buckets[index] = new ArrayList<>();
+        }
+        return buckets[index];
+    }
+
+    private List<E> take(int level, long slot) {
+        if (level >= levels.size()) {
+            return null;
+        }
+        List<E>[] buckets = levels.get(level);
+        int index = (int) Math.floorMod(slot, (long) wheelSize);
+        List<E> bucket = buckets[index];
+        buckets[index] = null;
+        return bucket == null || bucket.isEmpty() ? null : bucket;
+    }
+}
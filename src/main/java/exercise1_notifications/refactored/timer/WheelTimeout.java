@@ -0,0 +1,10 @@
+package exercise1_notifications.refactored.timer;
+
+public interface WheelTimeout {
+
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+}
@@ -0,0 +1,8 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ConnectionFactory<C extends TransportConnection> {
+    C open() throws IOException;
+}
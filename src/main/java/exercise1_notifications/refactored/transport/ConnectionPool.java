@@ -0,0 +1,116 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool<C extends TransportConnection> implements Closeable {
+    private final ConnectionFactory<C> factory;
+    private final long idleTimeoutNanos;
+    private final long acquireTimeoutNanos;
+    private final Semaphore leases;
+    private final ConcurrentLinkedDeque<Idle<C>> idle;
+    private final AtomicInteger openCount;
+    private final AtomicLong createdCount;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory<C> factory, int maxConnections, Duration idleTimeout,
+                          Duration acquireTimeout) {
+        if (maxConnections < 1) throw new IllegalArgumentException("Max connections must be positive");
+        this.factory = factory;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.leases = new Semaphore(maxConnections, true);
+        this.idle = new ConcurrentLinkedDeque<>();
+        this.openCount = new AtomicInteger();
+        this.createdCount = new AtomicLong();
+    }
+
+    public C acquire() throws IOException {
+        if (closed) throw new IOException("Connection pool is closed");
+        try {
+            if (!leases.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IOException("Timed out waiting for a pooled connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a pooled connection");
+        }
+        try {
+            long now = System.nanoTime();
+            Idle<C> candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (now - candidate.idleSince < idleTimeoutNanos && candidate.connection.isOpen()) {
+                    return candidate.connection;
+                }
+                discard(candidate.connection);
+            }
+            C connection = factory.open();
+            openCount.incrementAndGet();
+            createdCount.incrementAndGet();
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    public void release(C connection) {
+        if (closed || !connection.isOpen()) {
+            discard(connection);
+        } else {
+            idle.offerFirst(new Idle<>(connection, System.nanoTime()));
+        }
+        leases.release();
+    }
+
+    public void invalidate(C connection) {
+        discard(connection);
+        leases.release();
+    }
+
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Idle<C> candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            discard(candidate.connection);
+        }
+    }
+
+    private void discard(C connection) {
+        openCount.decrementAndGet();
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class Idle<C> {
+        private final C connection;
+        private final long idleSince;
+
+        private Idle(C connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+}
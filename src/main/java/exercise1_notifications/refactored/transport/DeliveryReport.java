@@ -0,0 +1,31 @@
+package exercise1_notifications.refactored.transport;
+
+import java.util.Map;
+
+public class DeliveryReport {
+    private final boolean accepted;
+    private final String reply;
+    private final Map<String, String> rejectedRecipients;
+
+    public DeliveryReport(boolean accepted, String reply, Map<String, String> rejectedRecipients) {
+        this.accepted = accepted;
+        this.reply = reply;
+        this.rejectedRecipients = Map.copyOf(rejectedRecipients);
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public boolean isAccepted(String recipient) {
+        return accepted && !rejectedRecipients.containsKey(recipient);
+    }
+
+    public String getReply() {
+        return reply;
+    }
+
+    public Map<String, String> getRejectedRecipients() {
+        return rejectedRecipients;
+    }
+}
@@ -0,0 +1,39 @@
+package exercise1_notifications.refactored.transport;
+
+import java.util.List;
+
+public class MailMessage {
+    private final String from;
+    private final List<String> recipients;
+    private final String body;
+
+    public MailMessage(String from, List<String> recipients, String body) {
+        if (recipients.isEmpty()) throw new IllegalArgumentException("At least one recipient is required");
+        requireSingleLine(from, "Sender");
+        for (String recipient : recipients) {
+            requireSingleLine(recipient, "Recipient");
+        }
+        this.from = from;
+        this.recipients = List.copyOf(recipients);
+        this.body = body;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    private static void requireSingleLine(String address, String role) {
+        if (address == null) throw new IllegalArgumentException(role + " address is required");
+        if (address.indexOf('\r') >= 0 || address.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException(role + " address must not contain line breaks");
+        }
+    }
+}
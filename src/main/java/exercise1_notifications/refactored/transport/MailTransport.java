@@ -0,0 +1,8 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface MailTransport extends Closeable {
+    DeliveryReport deliver(MailMessage message) throws IOException;
+}
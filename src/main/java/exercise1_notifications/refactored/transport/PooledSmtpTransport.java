@@ -0,0 +1,52 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class PooledSmtpTransport implements MailTransport {
+    private final ConnectionPool<SmtpConnection> pool;
+
+    public PooledSmtpTransport(String host, int port, int maxConnections) {
+        this(host, port, maxConnections, Duration.ofSeconds(30), Duration.ofSeconds(10));
+    }
+
+    public PooledSmtpTransport(String host, int port, int maxConnections, Duration idleTimeout, Duration timeout) {
+        this.pool = new ConnectionPool<>(() -> SmtpConnection.open(host, port, "localhost", timeout),
+                maxConnections, idleTimeout, timeout);
+    }
+
+    @Override
+    public DeliveryReport deliver(MailMessage message) throws IOException {
+        while (true) {
+            SmtpConnection connection = pool.acquire();
+            boolean reused = connection.getDeliveredCount() > 0;
+            try {
+                return deliver(connection, message);
+            } catch (StaleConnectionException e) {
+                if (!reused) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public ConnectionPool<SmtpConnection> getPool() {
+        return pool;
+    }
+
+    private DeliveryReport deliver(SmtpConnection connection, MailMessage message) throws IOException {
+        try {
+            DeliveryReport report = connection.send(message);
+            pool.release(connection);
+            return report;
+        } catch (IOException e) {
+            pool.invalidate(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,212 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SmtpConnection implements TransportConnection {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+    private final boolean pipelining;
+    private long deliveredCount;
+    private boolean broken;
+    private boolean envelopeAnswered;
+
+    private SmtpConnection(Socket socket, BufferedReader in, Writer out, boolean pipelining) {
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        this.pipelining = pipelining;
+    }
+
+    public static SmtpConnection open(String host, int port, String clientName, Duration timeout)
+            throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout((int) timeout.toMillis());
+            socket.connect(new InetSocketAddress(host, port), (int) timeout.toMillis());
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            expect(readReply(in), 220);
+            out.write("EHLO " + clientName + "\r\n");
+            out.flush();
+            Reply ehlo = expect(readReply(in), 250);
+            return new SmtpConnection(socket, in, out, ehlo.text.contains("PIPELINING"));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    public boolean supportsPipelining() {
+        return pipelining;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public DeliveryReport send(MailMessage message) throws IOException {
+        envelopeAnswered = false;
+        try {
+            DeliveryReport report = pipelining ? sendPipelined(message) : sendSequential(message);
+            deliveredCount++;
+            return report;
+        } catch (IOException e) {
+            broken = true;
+            throw envelopeAnswered ? e : new StaleConnectionException(e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !broken && !socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket.isClosed()) {
+            return;
+        }
+        try {
+            if (!broken) {
+                out.write("QUIT\r\n");
+                out.flush();
+            }
+        } catch (IOException ignored) {
+        } finally {
+            socket.close();
+        }
+    }
+
+    private DeliveryReport sendPipelined(MailMessage message) throws IOException {
+        List<String> recipients = message.getRecipients();
+        out.write("MAIL FROM:<" + message.getFrom() + ">\r\n");
+        for (String recipient : recipients) {
+            out.write("RCPT TO:<" + recipient + ">\r\n");
+        }
+        out.write("DATA\r\n");
+        out.flush();
+
+        Reply mail = readReply(in);
+        envelopeAnswered = true;
+        Map<String, String> rejected = new LinkedHashMap<>();
+        for (String recipient : recipients) {
+            Reply rcpt = readReply(in);
+            if (!rcpt.isPositive()) {
+                rejected.put(recipient, rcpt.toString());
+            }
+        }
+        Reply data = readReply(in);
+        return finishData(mail, data, rejected, message);
+    }
+
+    private DeliveryReport sendSequential(MailMessage message) throws IOException {
+        Reply mail = command("MAIL FROM:<" + message.getFrom() + ">");
+        envelopeAnswered = true;
+        Map<String, String> rejected = new LinkedHashMap<>();
+        if (mail.isPositive()) {
+            for (String recipient : message.getRecipients()) {
+                Reply rcpt = command("RCPT TO:<" + recipient + ">");
+                if (!rcpt.isPositive()) {
+                    rejected.put(recipient, rcpt.toString());
+                }
+            }
+        }
+        if (!mail.isPositive() || rejected.size() == message.getRecipients().size()) {
+            command("RSET");
+            return new DeliveryReport(false, mail.isPositive() ? "no valid recipients" : mail.toString(), rejected);
+        }
+        return finishData(mail, command("DATA"), rejected, message);
+    }
+
+    private DeliveryReport finishData(Reply mail, Reply data, Map<String, String> rejected, MailMessage message)
+            throws IOException {
+        if (data.code != 354) {
+            command("RSET");
+            return new DeliveryReport(false, mail.isPositive() ? data.toString() : mail.toString(), rejected);
+        }
+        writeBody(message.getBody());
+        out.write(".\r\n");
+        out.flush();
+        Reply accepted = readReply(in);
+        return new DeliveryReport(accepted.isPositive(), accepted.toString(), rejected);
+    }
+
+    private void writeBody(String body) throws IOException {
+        for (String line : body.split("\r?\n", -1)) {
+            if (line.startsWith(".")) {
+                out.write('.');
+            }
+            out.write(line);
+            out.write("\r\n");
+        }
+    }
+
+    private Reply command(String command) throws IOException {
+        out.write(command);
+        out.write("\r\n");
+        out.flush();
+        return readReply(in);
+    }
+
+    private static Reply expect(Reply reply, int code) throws IOException {
+        if (reply.code != code) {
+            throw new IOException("Unexpected SMTP reply: " + reply);
+        }
+        return reply;
+    }
+
+    private static Reply readReply(BufferedReader in) throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            String line = in.readLine();
+            if (line == null) throw new IOException("SMTP connection closed by server");
+            if (line.length() < 3) throw new IOException("Malformed SMTP reply: " + line);
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(line.length() > 4 ? line.substring(4) : "");
+            if (line.length() == 3 || line.charAt(3) != '-') {
+                try {
+                    return new Reply(Integer.parseInt(line.substring(0, 3)), text.toString());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed SMTP reply: " + line);
+                }
+            }
+        }
+    }
+
+    private static final class Reply {
+        private final int code;
+        private final String text;
+
+        private Reply(int code, String text) {
+            this.code = code;
+            this.text = text;
+        }
+
+        private boolean isPositive() {
+            return code >= 200 && code < 300;
+        }
+
+        @Override
+        public String toString() {
+            return code + " " + text;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.IOException;
+
+final class StaleConnectionException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    StaleConnectionException(IOException cause) {
+        super("Connection failed before the envelope was accepted: " + cause.getMessage(), cause);
+    }
+}
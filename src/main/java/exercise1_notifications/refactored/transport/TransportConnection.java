@@ -0,0 +1,7 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.Closeable;
+
+public interface TransportConnection extends Closeable {
+    boolean isOpen();
+}
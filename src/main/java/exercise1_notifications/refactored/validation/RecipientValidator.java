@@ -0,0 +1,7 @@
+package exercise1_notifications.refactored.validation;
+
+@FunctionalInterface
+public interface RecipientValidator {
+
+    boolean isValid(String recipient);
+}
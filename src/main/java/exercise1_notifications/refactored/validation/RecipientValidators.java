@@ -0,0 +1,73 @@
+package exercise1_notifications.refactored.validation;
+
+public final class RecipientValidators {
+    public static final RecipientValidator E164_PHONE = RecipientValidators::isE164Phone;
+    public static final RecipientValidator EMAIL = RecipientValidators::isEmail;
+    public static final RecipientValidator DEVICE_TOKEN = RecipientValidators::isDeviceToken;
+
+    private static final int MIN_PHONE_DIGITS = 10;
+    private static final int MAX_PHONE_DIGITS = 15;
+    private static final int MIN_DEVICE_TOKEN_LENGTH = 10;
+    private static final int MAX_DEVICE_TOKEN_LENGTH = 4096;
+
+    private RecipientValidators() {
+    }
+
+    public static boolean isE164Phone(String recipient) {
+        if (recipient == null) {
+            return false;
+        }
+        int start = !recipient.isEmpty() && recipient.charAt(0) == '+' ? 1 : 0;
+        int digits = recipient.length() - start;
+        if (digits < MIN_PHONE_DIGITS || digits > MAX_PHONE_DIGITS) {
+            return false;
+        }
+        for (int i = start; i < recipient.length(); i++) {
+            char c = recipient.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isEmail(String recipient) {
+        if (recipient == null) {
+            return false;
+        }
+        int at = -1;
+        char previous = 0;
+        for (int i = 0; i < recipient.length(); i++) {
+            char c = recipient.charAt(i);
+            if (c <= ' ' || c == 0x7F) {
+                return false;
+            }
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (c == '.' && at >= 0 && (previous == '.' || previous == '@')) {
+                return false;
+            }
+            previous = c;
+        }
+        return at > 0 && at < recipient.length() - 1 && previous != '.';
+    }
+
+    public static boolean isDeviceToken(String recipient) {
+        if (recipient == null || recipient.length() < MIN_DEVICE_TOKEN_LENGTH
+                || recipient.length() > MAX_DEVICE_TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < recipient.length(); i++) {
+            char c = recipient.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == ':' || c == '.';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
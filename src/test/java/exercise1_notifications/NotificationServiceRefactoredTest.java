@@ -3,18 +3,117 @@ package exercise1_notifications;
 // import exercise1_notifications.refactored.*;
 
 import exercise1_notifications.refactored.*;
+import exercise1_notifications.refactored.bulk.BulkRecord;
+import exercise1_notifications.refactored.bulk.BulkRecordFormat;
+import exercise1_notifications.refactored.bulk.BulkRecordReader;
+import exercise1_notifications.refactored.bulk.BulkSendPipeline;
+import exercise1_notifications.refactored.bulk.BulkSendReport;
+import exercise1_notifications.refactored.circuitbreaker.CircuitBreaker;
+import exercise1_notifications.refactored.circuitbreaker.CircuitBreakerConfig;
+import exercise1_notifications.refactored.circuitbreaker.CircuitBreakerNotificationSender;
+import exercise1_notifications.refactored.circuitbreaker.CircuitBreakerRegistry;
+import exercise1_notifications.refactored.circuitbreaker.CircuitState;
+import exercise1_notifications.refactored.dedup.DeduplicatingNotificationDispatcher;
+import exercise1_notifications.refactored.dedup.DeduplicationCache;
+import exercise1_notifications.refactored.digest.CoalescingNotificationDispatcher;
+import exercise1_notifications.refactored.digest.DigestFormatter;
 import exercise1_notifications.refactored.factory.NotificationSenderFactory;
+import exercise1_notifications.refactored.logs.AsyncNotificationLogger;
+import exercise1_notifications.refactored.logs.BinaryNotificationLogReader;
+import exercise1_notifications.refactored.logs.BinaryNotificationLogWriter;
+import exercise1_notifications.refactored.logs.BinaryNotificationLogger;
 import exercise1_notifications.refactored.logs.NotificationLogEntry;
+import exercise1_notifications.refactored.logs.IndexedNotificationLogger;
+import exercise1_notifications.refactored.logs.NotificationJournal;
+import exercise1_notifications.refactored.logs.NotificationJournalTailer;
+import exercise1_notifications.refactored.logs.NotificationLogPage;
+import exercise1_notifications.refactored.logs.NotificationLogQuery;
+import exercise1_notifications.refactored.logs.NotificationLogSink;
 import exercise1_notifications.refactored.logs.NotificationLogger;
+import exercise1_notifications.refactored.logs.NotificationRingBuffer;
+import exercise1_notifications.refactored.logs.OverflowPolicy;
+import exercise1_notifications.refactored.metrics.ChannelMetricsSnapshot;
+import exercise1_notifications.refactored.metrics.LatencyHistogram;
+import exercise1_notifications.refactored.metrics.LatencySnapshot;
+import exercise1_notifications.refactored.metrics.NotificationMetrics;
+import exercise1_notifications.refactored.metrics.NotificationPhase;
+import exercise1_notifications.refactored.outbox.NotificationOutbox;
+import exercise1_notifications.refactored.outbox.OutboxEntry;
+import exercise1_notifications.refactored.outbox.OutboxNotificationDispatcher;
+import exercise1_notifications.refactored.push.PushMulticastBatcher;
+import exercise1_notifications.refactored.push.PushProviderClient;
+import exercise1_notifications.refactored.push.PushTokenOutcome;
+import exercise1_notifications.refactored.push.StubPushProviderClient;
+import exercise1_notifications.refactored.ratelimit.NotificationRateLimiter;
+import exercise1_notifications.refactored.ratelimit.RateLimit;
+import exercise1_notifications.refactored.ratelimit.RateLimitedNotificationDispatcher;
+import exercise1_notifications.refactored.ratelimit.StripedTokenBucket;
+import exercise1_notifications.refactored.ratelimit.TokenBucket;
+import exercise1_notifications.refactored.retry.RetryPolicy;
+import exercise1_notifications.refactored.retry.RetryingNotificationDispatcher;
+import exercise1_notifications.refactored.scheduler.NotificationPriority;
+import exercise1_notifications.refactored.scheduler.PriorityDispatchScheduler;
+import exercise1_notifications.refactored.scheduler.ScheduledNotification;
+import exercise1_notifications.refactored.scheduler.ScheduledNotificationService;
+import exercise1_notifications.refactored.scheduler.ScheduledNotificationStore;
+import exercise1_notifications.refactored.service.AsyncNotificationService;
+import exercise1_notifications.refactored.service.BroadcastResult;
+import exercise1_notifications.refactored.service.FanOutPolicy;
+import exercise1_notifications.refactored.service.FanOutResult;
+import exercise1_notifications.refactored.service.NotificationDispatcher;
 import exercise1_notifications.refactored.service.NotificationService;
+import exercise1_notifications.refactored.service.ShardedNotificationService;
+import exercise1_notifications.refactored.template.Escapers;
+import exercise1_notifications.refactored.timer.HashedTimingWheel;
+import exercise1_notifications.refactored.timer.WheelTimeout;
+import exercise1_notifications.refactored.template.MessageTemplate;
+import exercise1_notifications.refactored.transport.DeliveryReport;
+import exercise1_notifications.refactored.transport.FakeSmtpServer;
+import exercise1_notifications.refactored.transport.MailMessage;
+import exercise1_notifications.refactored.transport.PooledSmtpTransport;
+import exercise1_notifications.refactored.validation.RecipientValidators;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -406,4 +505,2113 @@ public class NotificationServiceRefactoredTest {
             assertThat(result.getMessage()).containsIgnoringCase("unknown");
         }
     }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 8: Tests para el envío por lotes
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.8 - NotificationService.sendBatch (Envío por lotes)")
+    class BatchSendTests {
+
+        @Mock
+        private NotificationSender mockSender;
+
+        @Mock
+        private NotificationSenderFactory mockFactory;
+
+        @Mock
+        private NotificationLogger mockLogger;
+
+        private NotificationService service;
+
+        @BeforeEach
+        void setUp() {
+            service = new NotificationService(mockFactory, mockLogger);
+        }
+
+        @Test
+        @DisplayName("Debe resolver el sender una sola vez por canal")
+        void shouldResolveSenderOncePerChannel() {
+            when(mockFactory.createSender("SMS")).thenReturn(mockSender);
+            when(mockSender.send(anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            service.sendBatch(List.of(
+                    NotificationRequest.of("SMS", "+1234567890", "A"),
+                    NotificationRequest.of("SMS", "+1234567891", "B"),
+                    NotificationRequest.of("SMS", "+1234567892", "C")));
+
+            verify(mockFactory, times(1)).createSender("SMS");
+            verify(mockSender, times(3)).send(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Debe retornar los resultados en el orden de entrada")
+        void shouldReturnResultsInInputOrder() {
+            NotificationService realService = new NotificationService(new NotificationSenderFactory(), new NotificationLogger());
+
+            List<NotificationResult> results = realService.sendBatch(List.of(
+                    NotificationRequest.of("EMAIL", "user@example.com", "Hi"),
+                    NotificationRequest.of("UNKNOWN", "someone", "Hi"),
+                    NotificationRequest.of("SMS", "123", "Hi"),
+                    NotificationRequest.of("EMAIL", "other@example.com", "Hi")));
+
+            assertThat(results).extracting(NotificationResult::isSuccess)
+                    .containsExactly(true, false, false, true);
+            assertThat(results.get(1).getMessage()).containsIgnoringCase("unknown");
+        }
+
+        @Test
+        @DisplayName("Debe escribir los logs en bloque")
+        void shouldLogEntriesInBulk() {
+            when(mockFactory.createSender("PUSH")).thenReturn(mockSender);
+            when(mockSender.send(anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            service.sendBatch(List.of(
+                    NotificationRequest.of("PUSH", "device-token-1", "A"),
+                    NotificationRequest.of("PUSH", "device-token-2", "B")));
+
+            verify(mockLogger).logAll(argThat(entries -> entries.size() == 2));
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 9: Tests para el envío asíncrono con límites por canal
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.9 - AsyncNotificationService (Límites de concurrencia por canal)")
+    class AsyncNotificationServiceTests {
+
+        @Test
+        @DisplayName("Un canal lento no debe bloquear a los demás canales")
+        void slowChannelShouldNotStarveOtherChannels() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            factory.registerSender("SLOW", () -> new EmailNotificationSender() {
+                @Override
+                public NotificationResult send(String recipient, String message) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.send(recipient, message);
+                }
+            });
+            ExecutorService executor = Executors.newCachedThreadPool();
+            try {
+                AsyncNotificationService service = new AsyncNotificationService(
+                        new NotificationService(factory, new NotificationLogger()), executor, 4, factory::isRegistered);
+                service.setConcurrencyLimit("SLOW", 1);
+
+                CompletableFuture<NotificationResult> firstSlow = service.sendNotificationAsync("SLOW", "a@b.com", "1");
+                CompletableFuture<NotificationResult> secondSlow = service.sendNotificationAsync("SLOW", "a@b.com", "2");
+                NotificationResult sms = service.sendNotificationAsync("SMS", "+1234567890", "Hi")
+                        .get(5, TimeUnit.SECONDS);
+
+                assertThat(sms.isSuccess()).isTrue();
+                assertThat(service.getInFlight("SLOW")).isEqualTo(1);
+                assertThat(secondSlow).isNotDone();
+
+                release.countDown();
+                assertThat(firstSlow.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+                assertThat(secondSlow.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe rechazar límites de concurrencia no positivos")
+        void shouldRejectNonPositiveLimits() {
+            NotificationService delegate = new NotificationService(new NotificationSenderFactory(), new NotificationLogger());
+
+            assertThatThrownBy(() -> new AsyncNotificationService(delegate, Runnable::run, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("No debe crear carriles para tipos desconocidos ni desde los getters")
+        void shouldNotCreateLanesForUnknownTypes() throws Exception {
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            NotificationService delegate = new NotificationService(factory, new NotificationLogger());
+            AsyncNotificationService service = new AsyncNotificationService(delegate, Runnable::run, 4,
+                    factory::isRegistered);
+
+            NotificationResult unknown = service.sendNotificationAsync("FAX", "123", "Hola").get(5, TimeUnit.SECONDS);
+
+            assertThat(unknown.isSuccess()).isFalse();
+            assertThat(service.getInFlight("FAX")).isZero();
+            assertThat(service.getQueued("FAX")).isZero();
+            assertThat(service.getConcurrencyLimit("FAX")).isZero();
+            assertThat(service.getConcurrencyLimit("SMS")).isZero();
+            assertThatThrownBy(() -> service.setConcurrencyLimit("FAX", 2))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            service.sendNotificationAsync("sms", "+1234567890", "Hola").get(5, TimeUnit.SECONDS);
+            assertThat(service.getConcurrencyLimit("SMS")).isEqualTo(4);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 10: Tests para el logger asíncrono con ring buffer
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.10 - AsyncNotificationLogger (Ring buffer acotado)")
+    class AsyncNotificationLoggerTests {
+
+        @Test
+        @DisplayName("Debe contar y descartar entradas cuando el buffer está lleno")
+        void shouldCountDroppedEntriesWhenFull() {
+            NotificationRingBuffer ringBuffer = new NotificationRingBuffer(4, OverflowPolicy.DROP_NEWEST);
+
+            for (int i = 0; i < 6; i++) {
+                ringBuffer.publish(new NotificationLogEntry(true, "SMS", "+1234567890", "m" + i));
+            }
+
+            assertThat(ringBuffer.size()).isEqualTo(4);
+            assertThat(ringBuffer.getDroppedCount()).isEqualTo(2);
+            assertThat(ringBuffer.poll().getMessage()).isEqualTo("m0");
+        }
+
+        @Test
+        @DisplayName("Debe descartar las entradas más antiguas con DROP_OLDEST")
+        void shouldDropOldestEntries() {
+            NotificationRingBuffer ringBuffer = new NotificationRingBuffer(2, OverflowPolicy.DROP_OLDEST);
+
+            for (int i = 0; i < 3; i++) {
+                ringBuffer.publish(new NotificationLogEntry(true, "SMS", "+1234567890", "m" + i));
+            }
+
+            assertThat(ringBuffer.poll().getMessage()).isEqualTo("m1");
+            assertThat(ringBuffer.poll().getMessage()).isEqualTo("m2");
+            assertThat(ringBuffer.poll()).isNull();
+        }
+
+        @Test
+        @DisplayName("Debe escribir todas las entradas de varios hilos con BLOCK")
+        void shouldWriteEntriesFromConcurrentSenders() throws Exception {
+            NotificationLogger delegate = new NotificationLogger(
+                    new PrintStream(OutputStream.nullOutputStream()), Integer.MAX_VALUE);
+            try (AsyncNotificationLogger logger = new AsyncNotificationLogger(delegate, 16, OverflowPolicy.BLOCK)) {
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                for (int t = 0; t < 4; t++) {
+                    executor.submit(() -> {
+                        for (int i = 0; i < 250; i++) {
+                            logger.log(new NotificationLogEntry(true, "PUSH", "device-token-1", "m" + i));
+                        }
+                    });
+                }
+                executor.shutdown();
+                assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+                logger.flush();
+
+                assertThat(logger.getNotificationLogs()).hasSize(1000);
+                assertThat(logger.getDroppedCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe descartar las entradas registradas tras cerrar el logger")
+        void shouldDropEntriesLoggedAfterClose() {
+            NotificationLogger delegate = new NotificationLogger(
+                    new PrintStream(OutputStream.nullOutputStream()), Integer.MAX_VALUE);
+            AsyncNotificationLogger logger = new AsyncNotificationLogger(delegate, 16, OverflowPolicy.BLOCK);
+            logger.log(new NotificationLogEntry(true, "SMS", "+1234567890", "before"));
+            logger.close();
+
+            logger.log(new NotificationLogEntry(true, "SMS", "+1234567890", "after"));
+
+            assertThat(logger.getNotificationLogs()).extracting(NotificationLogEntry::getMessage).containsExactly("before");
+            assertThat(logger.getDroppedCount()).isEqualTo(1);
+            assertThat(logger.flush(Duration.ofMillis(100))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Debe contar las entradas fallidas sin bloquear el flush")
+        void shouldCountFailedEntriesWhenDelegateThrows() {
+            NotificationLogSink delegate = mock(NotificationLogSink.class);
+            doThrow(new IllegalStateException("disk full")).when(delegate).logAll(any());
+            try (AsyncNotificationLogger logger = new AsyncNotificationLogger(delegate, 16, OverflowPolicy.BLOCK)) {
+                logger.log(new NotificationLogEntry(false, "EMAIL", "user@example.com", "m"));
+
+                assertThat(logger.flush(Duration.ofSeconds(5))).isTrue();
+                assertThat(logger.getFailedCount()).isEqualTo(1);
+            }
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 11: Tests para la codificación binaria de logs
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.11 - BinaryNotificationLogger (Codificación binaria)")
+    class BinaryNotificationLogTests {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("Debe poder leer de vuelta las entradas escritas en binario")
+        void shouldRoundTripEntries() throws Exception {
+            Path file = tempDir.resolve("notifications.bin");
+            NotificationLogEntry email = new NotificationLogEntry(1_700_000_000_123_456_789L, true,
+                    "EMAIL", "user@example.com", "Hola, ¿qué tal? 😀");
+            NotificationLogEntry custom = new NotificationLogEntry(1_700_000_000_223_456_789L, false,
+                    "SLACK", null, "B".repeat(10_000));
+
+            try (BinaryNotificationLogger logger = new BinaryNotificationLogger(
+                    new BinaryNotificationLogWriter(file, 1024), 0)) {
+                logger.log(email);
+                logger.log(custom);
+            }
+
+            List<NotificationLogEntry> entries = new BinaryNotificationLogReader(file).readAll();
+            assertThat(entries).hasSize(2);
+            assertThat(entries.get(0)).usingRecursiveComparison().isEqualTo(email);
+            assertThat(entries.get(1)).usingRecursiveComparison().isEqualTo(custom);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar registros con longitud o tipo corruptos en lugar de colgarse")
+        void shouldRejectCorruptRecords() throws Exception {
+            Path negativeLength = tempDir.resolve("negative.bin");
+            Files.write(negativeLength, ByteBuffer.allocate(8).putInt(-8).array());
+            Path hugeLength = tempDir.resolve("huge.bin");
+            Files.write(hugeLength, ByteBuffer.allocate(8).putInt(Integer.MAX_VALUE).array());
+            Path unknownType = tempDir.resolve("type.bin");
+            Files.write(unknownType, ByteBuffer.allocate(22)
+                    .putInt(18).putLong(1L).put((byte) 1).put((byte) 42).putInt(-1).putInt(-1).array());
+
+            assertThatThrownBy(() -> new BinaryNotificationLogReader(negativeLength).readAll())
+                    .isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> new BinaryNotificationLogReader(hugeLength).readAll())
+                    .isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> new BinaryNotificationLogReader(unknownType).readAll())
+                    .isInstanceOf(IOException.class)
+                    .hasRootCauseMessage("Unknown notification type id 42");
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 12: Tests para el journal persistente por segmentos
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.12 - NotificationJournal (Segmentos mapeados en memoria)")
+    class NotificationJournalTests {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("Debe reproducir solo las entradas dentro del rango de tiempo")
+        void shouldReplayTimeRangeAcrossSegments() throws Exception {
+            try (NotificationJournal journal = new NotificationJournal(tempDir, 4096)) {
+                for (int i = 1; i <= 500; i++) {
+                    journal.append(new NotificationLogEntry(i * 1_000L, true, "SMS", "+1234567890", "m" + i));
+                }
+
+                List<NotificationLogEntry> replayed = new ArrayList<>();
+                long count = journal.replay(100_000L, 199_000L, replayed::add);
+
+                assertThat(count).isEqualTo(100);
+                assertThat(replayed.get(0).getMessage()).isEqualTo("m100");
+                assertThat(replayed.get(99).getMessage()).isEqualTo("m199");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe seguir las nuevas entradas y sobrevivir a un reinicio")
+        void shouldFollowNewEntriesAndSurviveRestart() throws Exception {
+            try (NotificationJournal journal = new NotificationJournal(tempDir, 4096)) {
+                NotificationJournalTailer tailer = journal.follow(0);
+                journal.append(new NotificationLogEntry(1_000L, true, "EMAIL", "a@b.com", "first"));
+
+                List<String> messages = new ArrayList<>();
+                assertThat(tailer.poll(entry -> messages.add(entry.getMessage()), 10)).isEqualTo(1);
+                assertThat(tailer.poll(entry -> messages.add(entry.getMessage()), 10)).isZero();
+                assertThat(messages).containsExactly("first");
+            }
+
+            try (NotificationJournal reopened = new NotificationJournal(tempDir, 4096)) {
+                reopened.append(new NotificationLogEntry(2_000L, false, "PUSH", "device-token-1", "second"));
+
+                assertThat(reopened.replay(0, Long.MAX_VALUE, entry -> { })).isEqualTo(2);
+            }
+        }
+
+        @Test
+        @DisplayName("Cada registro debe llevar una sola cabecera de longitud")
+        void shouldStoreRecordsWithSingleLengthHeader() throws Exception {
+            try (NotificationJournal journal = new NotificationJournal(tempDir, 4096)) {
+                journal.append(new NotificationLogEntry(42_000L, true, "SMS", "+1234567890", "hola"));
+                journal.force();
+            }
+
+            ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(tempDir.resolve("00000000000000000000.segment")));
+            assertThat(segment.getInt(16)).isEqualTo(Long.BYTES + 2 + Integer.BYTES + 11 + Integer.BYTES + 4);
+            assertThat(segment.getLong(20)).isEqualTo(42_000L);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 13: Tests para las consultas indexadas sobre los logs
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.13 - IndexedNotificationLogger (Consultas paginadas)")
+    class IndexedNotificationLoggerTests {
+
+        private IndexedNotificationLogger logger;
+
+        @BeforeEach
+        void setUp() {
+            logger = new IndexedNotificationLogger(new PrintStream(OutputStream.nullOutputStream()), 0);
+            for (int i = 0; i < 30; i++) {
+                logger.log(new NotificationLogEntry(i * 1_000L, i % 3 != 0, i % 2 == 0 ? "SMS" : "EMAIL",
+                        "recipient-" + (i % 5), "m" + i));
+            }
+        }
+
+        @Test
+        @DisplayName("Debe filtrar por destinatario, tipo y estado")
+        void shouldFilterByRecipientTypeAndStatus() {
+            NotificationLogPage page = logger.query(NotificationLogQuery.all()
+                    .forRecipient("recipient-0").ofType("SMS").withStatus(true));
+
+            assertThat(page.getEntries()).extracting(NotificationLogEntry::getMessage)
+                    .containsExactly("m10", "m20");
+            assertThat(page.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Debe paginar los resultados usando el cursor")
+        void shouldPageResultsWithCursor() {
+            NotificationLogQuery query = NotificationLogQuery.all().ofType("SMS").between(0, 19_000L).limit(4);
+
+            NotificationLogPage first = logger.query(query);
+            NotificationLogPage second = logger.query(query.next(first));
+            NotificationLogPage third = logger.query(query.next(second));
+
+            assertThat(first.getEntries()).extracting(NotificationLogEntry::getMessage)
+                    .containsExactly("m0", "m2", "m4", "m6");
+            assertThat(first.hasNext()).isTrue();
+            assertThat(second.getEntries()).extracting(NotificationLogEntry::getMessage)
+                    .containsExactly("m8", "m10", "m12", "m14");
+            assertThat(third.getEntries()).extracting(NotificationLogEntry::getMessage)
+                    .containsExactly("m16", "m18");
+            assertThat(third.hasNext()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Una entrada con marca de tiempo tardía no debe ocultar las siguientes")
+        void lateStampedEntryShouldNotHideLaterEntries() {
+            logger.log(new NotificationLogEntry(90_000L, true, "PUSH", "device", "tarde"));
+            logger.log(new NotificationLogEntry(31_000L, true, "PUSH", "device", "en rango"));
+
+            NotificationLogPage page = logger.query(NotificationLogQuery.all().ofType("PUSH").between(0, 40_000L));
+
+            assertThat(page.getEntries()).extracting(NotificationLogEntry::getMessage).containsExactly("en rango");
+        }
+
+        @Test
+        @DisplayName("El índice debe respetar el límite de retención")
+        void indexShouldHonourRetentionLimit() {
+            IndexedNotificationLogger bounded = new IndexedNotificationLogger(
+                    new PrintStream(OutputStream.nullOutputStream()), 10);
+            for (int i = 0; i < 30; i++) {
+                bounded.log(new NotificationLogEntry(i * 1_000L, true, "SMS", "recipient-" + (i % 5), "m" + i));
+            }
+
+            NotificationLogPage page = bounded.query(NotificationLogQuery.all().forRecipient("recipient-0"));
+
+            assertThat(page.getEntries()).extracting(NotificationLogEntry::getMessage).containsExactly("m20", "m25");
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 14: Tests para los validadores de destinatarios
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.14 - RecipientValidators (Validadores sin regex)")
+    class RecipientValidatorsTests {
+
+        @Test
+        @DisplayName("Debe validar teléfonos E.164 igual que la expresión regular original")
+        void shouldValidateE164Phones() {
+            for (String phone : List.of("+1234567890", "1234567890123", "123", "abc", "+", "", "+1234567890123456")) {
+                assertThat(RecipientValidators.E164_PHONE.isValid(phone))
+                        .as(phone)
+                        .isEqualTo(phone.matches("\\+?\\d{10,15}"));
+            }
+            assertThat(RecipientValidators.E164_PHONE.isValid(null)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Debe validar la sintaxis de los emails")
+        void shouldValidateEmailSyntax() {
+            assertThat(RecipientValidators.EMAIL.isValid("user@example.com")).isTrue();
+            assertThat(RecipientValidators.EMAIL.isValid("a@b.com")).isTrue();
+            assertThat(RecipientValidators.EMAIL.isValid("@example.com")).isFalse();
+            assertThat(RecipientValidators.EMAIL.isValid("user@")).isFalse();
+            assertThat(RecipientValidators.EMAIL.isValid("a@@b.com")).isFalse();
+            assertThat(RecipientValidators.EMAIL.isValid("a b@c.com")).isFalse();
+            assertThat(RecipientValidators.EMAIL.isValid("a@b..com")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Debe validar el formato de los tokens de dispositivo")
+        void shouldValidateDeviceTokens() {
+            assertThat(RecipientValidators.DEVICE_TOKEN.isValid("device-token-12345")).isTrue();
+            assertThat(RecipientValidators.DEVICE_TOKEN.isValid("short")).isFalse();
+            assertThat(RecipientValidators.DEVICE_TOKEN.isValid("device token 12345")).isFalse();
+            assertThat(RecipientValidators.DEVICE_TOKEN.isValid(null)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Debe permitir inyectar un validador personalizado en el sender")
+        void shouldAllowCustomValidator() {
+            SmsNotificationSender sender = new SmsNotificationSender(recipient -> recipient.startsWith("+57"));
+
+            assertThat(sender.send("+573001234567", "Hola").isSuccess()).isTrue();
+            assertThat(sender.send("+13001234567", "Hola").isSuccess()).isFalse();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 15: Tests para las plantillas de mensajes precompiladas
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.15 - MessageTemplate (Plantillas precompiladas)")
+    class MessageTemplateTests {
+
+        @Test
+        @DisplayName("Debe escapar el HTML del mensaje en los emails")
+        void shouldEscapeHtmlInEmails() {
+            String formatted = new EmailNotificationSender().formatMessage("<script>alert('x')</script> & co");
+
+            assertThat(formatted).startsWith("<html>").endsWith("</html>");
+            assertThat(formatted).contains("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; co");
+        }
+
+        @Test
+        @DisplayName("Debe reemplazar varios placeholders y truncar al límite del canal")
+        void shouldRenderPlaceholdersAndTruncate() {
+            MessageTemplate template = MessageTemplate.compile("Hola {{name}}, pedido {{order}} enviado", Escapers.NONE, 20);
+
+            String rendered = template.render(Map.of("name", "Ana", "order", "#123"));
+
+            assertThat(rendered).hasSize(20).isEqualTo("Hola Ana, pedido ...");
+        }
+
+        @Test
+        @DisplayName("No debe copiar mensajes que ya caben en el canal")
+        void shouldReturnShortMessagesUnchanged() {
+            String message = "Hola";
+
+            assertThat(new SmsNotificationSender().formatMessage(message)).isSameAs(message);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 16: Tests para el modo broadcast
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.16 - NotificationService.broadcast (Formatear una vez, enviar a muchos)")
+    class BroadcastTests {
+
+        @Mock
+        private NotificationSender mockSender;
+
+        @Mock
+        private NotificationSenderFactory mockFactory;
+
+        @Mock
+        private NotificationLogger mockLogger;
+
+        @Test
+        @DisplayName("Debe formatear el mensaje una sola vez para todos los destinatarios")
+        void shouldFormatMessageOnce() {
+            when(mockFactory.createSender("PUSH")).thenReturn(mockSender);
+            when(mockSender.formatMessage("Hola")).thenReturn("Hola!");
+            when(mockSender.sendFormatted(anyString(), eq("Hola"), eq("Hola!")))
+                    .thenReturn(NotificationResult.success("Sent"));
+            NotificationService service = new NotificationService(mockFactory, mockLogger);
+
+            BroadcastResult result = service.broadcast("PUSH", "Hola",
+                    List.of("device-token-1", "device-token-2", "device-token-3"));
+
+            assertThat(result.getSentCount()).isEqualTo(3);
+            verify(mockSender, times(1)).formatMessage("Hola");
+            verify(mockSender, times(3)).sendFormatted(anyString(), eq("Hola"), eq("Hola!"));
+        }
+
+        @Test
+        @DisplayName("Debe contar los destinatarios inválidos como fallidos")
+        void shouldCountInvalidRecipientsAsFailed() {
+            NotificationService service = new NotificationService(new NotificationSenderFactory(),
+                    new NotificationLogger(new PrintStream(OutputStream.nullOutputStream()), 0));
+            List<String> failedRecipients = new ArrayList<>();
+
+            BroadcastResult result = service.broadcast("SMS", "Hola", List.of("+1234567890", "123", "+1234567891"),
+                    (recipient, sendResult) -> {
+                        if (!sendResult.isSuccess()) {
+                            failedRecipients.add(recipient);
+                        }
+                    });
+
+            assertThat(result.getSentCount()).isEqualTo(2);
+            assertThat(result.getFailedCount()).isEqualTo(1);
+            assertThat(failedRecipients).containsExactly("123");
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 17: Tests para la deduplicación de notificaciones
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.17 - DeduplicatingNotificationDispatcher (Caché con TTL)")
+    class DeduplicationTests {
+
+        @Mock
+        private NotificationDispatcher mockDispatcher;
+
+        private AtomicLong clock;
+        private DeduplicatingNotificationDispatcher dispatcher;
+
+        @BeforeEach
+        void setUp() {
+            clock = new AtomicLong();
+            dispatcher = new DeduplicatingNotificationDispatcher(mockDispatcher,
+                    new DeduplicationCache(64, Duration.ofSeconds(10), clock::get));
+        }
+
+        @Test
+        @DisplayName("Debe retornar el resultado en caché para duplicados dentro de la ventana")
+        void shouldReturnCachedResultForDuplicates() {
+            NotificationResult sent = NotificationResult.success("Sent");
+            when(mockDispatcher.sendNotification("SMS", "+1234567890", "Hola")).thenReturn(sent);
+
+            NotificationResult first = dispatcher.sendNotification("SMS", "+1234567890", "Hola");
+            NotificationResult second = dispatcher.sendNotification("SMS", "+1234567890", "Hola");
+
+            assertThat(second).isSameAs(first);
+            verify(mockDispatcher, times(1)).sendNotification("SMS", "+1234567890", "Hola");
+        }
+
+        @Test
+        @DisplayName("Debe volver a enviar cuando expira el TTL")
+        void shouldSendAgainAfterTtl() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            dispatcher.sendNotification("EMAIL", "a@b.com", "Hola");
+            clock.addAndGet(Duration.ofSeconds(11).toNanos());
+            dispatcher.sendNotification("EMAIL", "a@b.com", "Hola");
+
+            verify(mockDispatcher, times(2)).sendNotification("EMAIL", "a@b.com", "Hola");
+        }
+
+        @Test
+        @DisplayName("No debe guardar en caché los envíos fallidos")
+        void shouldNotCacheFailures() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.failure("invalid recipient"));
+
+            dispatcher.sendNotification("SMS", "123", "Hola");
+            dispatcher.sendNotification("SMS", "123", "Hola");
+
+            verify(mockDispatcher, times(2)).sendNotification("SMS", "123", "Hola");
+        }
+
+        @Test
+        @DisplayName("Un Error durante el envío no debe dejar la entrada bloqueada")
+        void errorDuringSendShouldNotLeaveEntryStuck() {
+            when(mockDispatcher.sendNotification("PUSH", "device-token-1", "Hola"))
+                    .thenThrow(new StackOverflowError())
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            assertThatThrownBy(() -> dispatcher.sendNotification("PUSH", "device-token-1", "Hola"))
+                    .isInstanceOf(StackOverflowError.class);
+            NotificationResult retried = dispatcher.sendNotification("PUSH", "device-token-1", "Hola");
+
+            assertThat(retried.isSuccess()).isTrue();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 18: Tests para el control de tasa por canal y destinatario
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.18 - RateLimitedNotificationDispatcher (Token buckets)")
+    class RateLimitingTests {
+
+        @Mock
+        private NotificationDispatcher mockDispatcher;
+
+        private AtomicLong clock;
+
+        @BeforeEach
+        void setUp() {
+            clock = new AtomicLong();
+        }
+
+        @Test
+        @DisplayName("Debe permitir la ráfaga configurada y rechazar el exceso")
+        void shouldAllowBurstAndRejectExcess() {
+            TokenBucket bucket = new TokenBucket(RateLimit.perSecond(10, 3), clock::get);
+
+            assertThat(bucket.tryAcquire()).isTrue();
+            assertThat(bucket.tryAcquire()).isTrue();
+            assertThat(bucket.tryAcquire()).isTrue();
+            assertThat(bucket.tryAcquire()).isFalse();
+
+            clock.addAndGet(Duration.ofMillis(100).toNanos());
+            assertThat(bucket.tryAcquire()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Debe limitar por destinatario sin llamar al dispatcher")
+        void shouldLimitPerRecipientWithoutCallingDelegate() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+            NotificationRateLimiter rateLimiter = new NotificationRateLimiter(RateLimit.perSecond(1, 1), 100, clock::get);
+            RateLimitedNotificationDispatcher dispatcher = new RateLimitedNotificationDispatcher(mockDispatcher, rateLimiter);
+
+            NotificationResult first = dispatcher.sendNotification("PUSH", "device-token-1", "Hola");
+            NotificationResult second = dispatcher.sendNotification("PUSH", "device-token-1", "Hola");
+            NotificationResult other = dispatcher.sendNotification("PUSH", "device-token-2", "Hola");
+
+            assertThat(first.isSuccess()).isTrue();
+            assertThat(second.isSuccess()).isFalse();
+            assertThat(second.getMessage()).contains("rate limited");
+            assertThat(other.isSuccess()).isTrue();
+            assertThat(rateLimiter.getRecipientRejectedCount()).isEqualTo(1);
+            verify(mockDispatcher, times(2)).sendNotification(anyString(), anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Debe exponer los contadores del límite por canal")
+        void shouldExposeChannelCounters() {
+            NotificationRateLimiter rateLimiter = new NotificationRateLimiter(null, 100, clock::get);
+            rateLimiter.setChannelLimit("sms", RateLimit.perSecond(100, 2));
+
+            rateLimiter.tryAcquire("SMS", "+1234567890");
+            rateLimiter.tryAcquire("SMS", "+1234567891");
+            rateLimiter.tryAcquire("SMS", "+1234567892");
+
+            assertThat(rateLimiter.getPermittedCount("SMS")).isEqualTo(2);
+            assertThat(rateLimiter.getRejectedCount("sms")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Las franjas deben sumar exactamente la ráfaga configurada")
+        void stripesShouldAddUpToConfiguredBurst() {
+            StripedTokenBucket bucket = new StripedTokenBucket(RateLimit.perSecond(10, 10), 8, clock::get);
+
+            assertThat(bucket.stripeCount()).isEqualTo(8);
+            assertThat(bucket.availablePermits()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Debe acotar los destinatarios rastreados aunque ninguno esté inactivo")
+        void shouldBoundTrackedRecipientsWhenNoneAreIdle() {
+            NotificationRateLimiter rateLimiter = new NotificationRateLimiter(RateLimit.perSecond(1, 1), 10, clock::get);
+
+            for (int i = 0; i < 1_000; i++) {
+                rateLimiter.tryAcquire("SMS", "+1234567" + i);
+            }
+
+            assertThat(rateLimiter.getTrackedRecipients()).isLessThanOrEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Debe dejar pasar sin límite de canal las notificaciones sin tipo")
+        void shouldPassThroughNullNotificationType() {
+            NotificationRateLimiter rateLimiter = new NotificationRateLimiter(null, 100, clock::get);
+            rateLimiter.setChannelLimit("SMS", RateLimit.perSecond(1, 1));
+
+            assertThat(rateLimiter.tryAcquire(null, "+1234567890")).isTrue();
+            assertThat(rateLimiter.tryAcquire(null, "+1234567890")).isTrue();
+            assertThat(rateLimiter.nanosUntilAvailable(null, "+1234567890")).isZero();
+            assertThat(rateLimiter.getPermittedCount(null)).isZero();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 19: Tests para el planificador con carriles de prioridad
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.19 - PriorityDispatchScheduler (Carriles de prioridad)")
+    class PriorityDispatchSchedulerTests {
+
+        @Test
+        @DisplayName("Los mensajes críticos deben adelantar al tráfico masivo en cola")
+        void criticalMessagesShouldOvertakeQueuedBulkTraffic() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> processed = Collections.synchronizedList(new ArrayList<>());
+            NotificationDispatcher dispatcher = (type, recipient, message) -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                processed.add(message);
+                return NotificationResult.success("Sent");
+            };
+
+            try (PriorityDispatchScheduler scheduler = new PriorityDispatchScheduler(dispatcher, 1, 10)) {
+                CompletableFuture<NotificationResult> first =
+                        scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "bulk-0");
+                assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+                scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "bulk-1");
+                scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "bulk-2");
+                CompletableFuture<NotificationResult> critical =
+                        scheduler.trySubmit(NotificationPriority.CRITICAL, "SMS", "+1234567890", "reset");
+
+                release.countDown();
+                critical.get(5, TimeUnit.SECONDS);
+                first.get(5, TimeUnit.SECONDS);
+
+                assertThat(processed.subList(0, 2)).containsExactly("bulk-0", "reset");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe señalar backpressure cuando el carril está lleno")
+        void shouldSignalBackpressureWhenLaneIsFull() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            NotificationDispatcher dispatcher = (type, recipient, message) -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return NotificationResult.success("Sent");
+            };
+
+            try (PriorityDispatchScheduler scheduler = new PriorityDispatchScheduler(dispatcher, 1, 1)) {
+                scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "1");
+                assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+                scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "2");
+
+                assertThatThrownBy(() -> scheduler.trySubmit(NotificationPriority.BULK, "EMAIL", "a@b.com", "3"))
+                        .isInstanceOf(RejectedExecutionException.class);
+                assertThat(scheduler.getRemainingCapacity(NotificationPriority.BULK)).isZero();
+                assertThat(scheduler.getRemainingCapacity(NotificationPriority.CRITICAL)).isEqualTo(1);
+                release.countDown();
+            }
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 20: Tests para el modo digest (agrupación por destinatario)
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.20 - CoalescingNotificationDispatcher (Digest por destinatario)")
+    class CoalescingTests {
+
+        @Mock
+        private NotificationDispatcher mockDispatcher;
+
+        @Test
+        @DisplayName("Debe agrupar los mensajes de un destinatario en un solo digest")
+        void shouldMergeMessagesIntoSingleDigest() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            try (CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(
+                    mockDispatcher, Set.of("PUSH"), Duration.ofHours(1), 3, 100)) {
+                dispatcher.sendNotification("PUSH", "device-token-1", "Like");
+                dispatcher.sendNotification("PUSH", "device-token-1", "Comment");
+                dispatcher.sendNotification("PUSH", "device-token-1", "Follow");
+
+                verify(mockDispatcher, times(1)).sendNotification("PUSH", "device-token-1",
+                        "You have 3 new notifications:\n- Like\n- Comment\n- Follow");
+                assertThat(dispatcher.getOpenWindowCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("No debe agrupar los canales no configurados")
+        void shouldPassThroughOtherChannels() {
+            when(mockDispatcher.sendNotification("SMS", "+1234567890", "Código 1234"))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            try (CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(
+                    mockDispatcher, Set.of("PUSH"), Duration.ofHours(1), 10, 100)) {
+                NotificationResult result = dispatcher.sendNotification("SMS", "+1234567890", "Código 1234");
+
+                assertThat(result.getMessage()).isEqualTo("Sent");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe agrupar en el mismo digest sin importar mayúsculas del canal")
+        void shouldMergeDigestIgnoringTypeCase() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.success("Sent"));
+
+            try (CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(
+                    mockDispatcher, Set.of("EMAIL"), Duration.ofHours(1), 2, 100)) {
+                dispatcher.sendNotification("email", "user@test.com", "Factura");
+                dispatcher.sendNotification("EMAIL", "user@test.com", "Recibo");
+
+                verify(mockDispatcher, times(1)).sendNotification("EMAIL", "user@test.com",
+                        "You have 2 new notifications:\n- Factura\n- Recibo");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe rechazar destinatarios inválidos sin abrir ventana")
+        void shouldRejectInvalidRecipientUpFront() {
+            try (CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(
+                    mockDispatcher, Set.of("EMAIL"), Duration.ofHours(1), 10, 100)) {
+                NotificationResult result = dispatcher.sendNotification("EMAIL", "no-es-un-email", "Hola");
+
+                assertThat(result.isSuccess()).isFalse();
+                assertThat(dispatcher.getOpenWindowCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe contar y notificar los digests que fallan")
+        void shouldReportFailedDigests() {
+            when(mockDispatcher.sendNotification(anyString(), anyString(), anyString()))
+                    .thenReturn(NotificationResult.failure("smtp unavailable"));
+            List<String> failures = new ArrayList<>();
+
+            try (CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(
+                    mockDispatcher, Set.of("EMAIL"), Duration.ofHours(1), 10, 100, DigestFormatter.bulleted(),
+                    Executors.newSingleThreadScheduledExecutor(), Map.of(),
+                    (type, recipient, messages, result) -> failures.add(recipient + ": " + result.getMessage()))) {
+                dispatcher.sendNotification("EMAIL", "user@test.com", "Factura");
+                dispatcher.flushAll();
+
+                assertThat(dispatcher.getDigestsSentCount()).isZero();
+                assertThat(dispatcher.getDigestsFailedCount()).isEqualTo(1);
+                assertThat(failures).containsExactly("user@test.com: smtp unavailable");
+            }
+        }
+
+        @Test
+        @DisplayName("Tras cerrar debe enviar directamente sin abrir ventanas huérfanas")
+        void shouldSendDirectlyAfterClose() {
+            when(mockDispatcher.sendNotification("EMAIL", "user@test.com", "Factura"))
+                    .thenReturn(NotificationResult.success("Sent"));
+            CoalescingNotificationDispatcher dispatcher = new CoalescingNotificationDispatcher(mockDispatcher,
+                    Set.of("EMAIL"), Duration.ofHours(1), 10, 100);
+            dispatcher.close();
+
+            NotificationResult result = dispatcher.sendNotification("EMAIL", "user@test.com", "Factura");
+
+            assertThat(result.getMessage()).isEqualTo("Sent");
+            assertThat(dispatcher.getOpenWindowCount()).isZero();
+            verify(mockDispatcher).sendNotification("EMAIL", "user@test.com", "Factura");
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 21: Tests para los reintentos con backoff en timing wheel
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.21 - RetryingNotificationDispatcher (Backoff sobre timing wheel)")
+    class RetryTests {
+
+        @Mock
+        private NotificationDispatcher mockDispatcher;
+
+        @Mock
+        private NotificationLogger mockLogger;
+
+        private HashedTimingWheel timingWheel;
+
+        @BeforeEach
+        void setUp() {
+            timingWheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 64, Runnable::run);
+        }
+
+        @AfterEach
+        void tearDown() {
+            timingWheel.close();
+        }
+
+        @Test
+        @DisplayName("Debe reintentar los fallos transitorios hasta tener éxito")
+        void shouldRetryTransientFailuresUntilSuccess() throws Exception {
+            when(mockDispatcher.sendNotification("SMS", "+1234567890", "Hola"))
+                    .thenReturn(NotificationResult.failure("provider unavailable"))
+                    .thenReturn(NotificationResult.failure("provider unavailable"))
+                    .thenReturn(NotificationResult.success("Sent"));
+            RetryingNotificationDispatcher dispatcher = new RetryingNotificationDispatcher(mockDispatcher,
+                    RetryPolicy.exponential(5, Duration.ofMillis(10), Duration.ofMillis(100)), timingWheel, mockLogger);
+
+            NotificationResult result = dispatcher.sendWithRetries("SMS", "+1234567890", "Hola")
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(dispatcher.getScheduledRetryCount()).isEqualTo(2);
+            verify(mockLogger, never()).log(any(NotificationLogEntry.class));
+        }
+
+        @Test
+        @DisplayName("No debe reintentar destinatarios inválidos")
+        void shouldNotRetryInvalidRecipients() {
+            when(mockDispatcher.sendNotification("SMS", "123", "Hola"))
+                    .thenReturn(NotificationResult.INVALID_RECIPIENT);
+            RetryingNotificationDispatcher dispatcher = new RetryingNotificationDispatcher(mockDispatcher,
+                    RetryPolicy.exponential(5, Duration.ofMillis(10), Duration.ofMillis(100)), timingWheel, mockLogger);
+
+            NotificationResult result = dispatcher.sendNotification("SMS", "123", "Hola");
+
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(dispatcher.getPendingRetryCount()).isZero();
+            verify(mockDispatcher, times(1)).sendNotification("SMS", "123", "Hola");
+        }
+
+        @Test
+        @DisplayName("Debe clasificar los fallos por tipo y no por el texto del mensaje")
+        void shouldClassifyFailuresByKindNotByMessageText() {
+            assertThat(RetryPolicy.isTransientFailure(NotificationResult.failure("invalid gateway response"))).isTrue();
+            assertThat(RetryPolicy.isTransientFailure(NotificationResult.UNKNOWN)).isFalse();
+            assertThat(RetryPolicy.isTransientFailure(NotificationResult.rejected("mailbox disabled"))).isFalse();
+            assertThat(RetryPolicy.isTransientFailure(NotificationResult.success("Sent"))).isFalse();
+        }
+
+        @Test
+        @DisplayName("Cerrar el timing wheel debe fallar los reintentos pendientes")
+        void closingWheelShouldFailPendingRetries() {
+            when(mockDispatcher.sendNotification("SMS", "+1234567890", "Hola"))
+                    .thenReturn(NotificationResult.failure("provider unavailable"));
+            RetryingNotificationDispatcher dispatcher = new RetryingNotificationDispatcher(mockDispatcher,
+                    RetryPolicy.exponential(5, Duration.ofSeconds(10), Duration.ofSeconds(10)), timingWheel, mockLogger);
+
+            CompletableFuture<NotificationResult> result = dispatcher.sendWithRetries("SMS", "+1234567890", "Hola");
+            timingWheel.close();
+
+            assertThat(result).isCompletedExceptionally();
+            assertThat(timingWheel.getPendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Debe ejecutar en línea las tareas rechazadas por el executor")
+        void shouldRunRejectedTasksInline() throws Exception {
+            try (HashedTimingWheel rejecting = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 64, task -> {
+                throw new RejectedExecutionException("saturated");
+            })) {
+                CountDownLatch fired = new CountDownLatch(1);
+                rejecting.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+
+                assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+                assertThat(rejecting.getRejectedCount()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("Las tareas canceladas no deben ejecutarse")
+        void cancelledTimeoutsShouldNotRun() throws Exception {
+            AtomicInteger runs = new AtomicInteger();
+            WheelTimeout cancelled = timingWheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+            CountDownLatch fired = new CountDownLatch(1);
+            timingWheel.schedule(fired::countDown, 40, TimeUnit.MILLISECONDS);
+
+            assertThat(cancelled.cancel()).isTrue();
+            assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(runs.get()).isZero();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 22: Tests para los circuit breakers por canal
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.22 - CircuitBreakerNotificationSender (Circuit breaker por canal)")
+    class CircuitBreakerTests {
+
+        @Mock
+        private NotificationSender mockSender;
+
+        private AtomicLong clock;
+        private CircuitBreaker circuitBreaker;
+        private CircuitBreakerNotificationSender sender;
+
+        @BeforeEach
+        void setUp() {
+            clock = new AtomicLong();
+            CircuitBreakerConfig config = new CircuitBreakerConfig(0.5, 4, Duration.ofSeconds(10), 10,
+                    Duration.ofSeconds(5), 2);
+            circuitBreaker = new CircuitBreaker(config, clock::get);
+            sender = new CircuitBreakerNotificationSender(mockSender, circuitBreaker, RetryPolicy::isTransientFailure);
+        }
+
+        @Test
+        @DisplayName("Debe abrirse y cortocircuitar cuando la tasa de fallos supera el umbral")
+        void shouldOpenAndShortCircuitWhenFailureRateExceedsThreshold() {
+            when(mockSender.getType()).thenReturn("EMAIL");
+            when(mockSender.send(anyString(), anyString())).thenReturn(NotificationResult.failure("smtp down"));
+
+            for (int i = 0; i < 4; i++) {
+                sender.send("test@test.com", "Hola");
+            }
+            NotificationResult result = sender.send("test@test.com", "Hola");
+
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.OPEN);
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getMessage()).contains("circuit open");
+            verify(mockSender, times(4)).send("test@test.com", "Hola");
+        }
+
+        @Test
+        @DisplayName("Debe cerrarse tras pruebas semiabiertas exitosas")
+        void shouldCloseAfterSuccessfulHalfOpenProbes() {
+            when(mockSender.send(anyString(), anyString()))
+                    .thenReturn(NotificationResult.failure("smtp down"), NotificationResult.failure("smtp down"),
+                            NotificationResult.failure("smtp down"), NotificationResult.failure("smtp down"))
+                    .thenReturn(NotificationResult.success("Sent"));
+            for (int i = 0; i < 4; i++) {
+                sender.send("test@test.com", "Hola");
+            }
+
+            clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+            assertThat(sender.send("test@test.com", "Hola").isSuccess()).isTrue();
+            assertThat(sender.send("test@test.com", "Hola").isSuccess()).isTrue();
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+        }
+
+        @Test
+        @DisplayName("Los destinatarios inválidos no deben abrir el circuito")
+        void invalidRecipientsShouldNotOpenCircuit() {
+            when(mockSender.send(anyString(), anyString())).thenReturn(NotificationResult.INVALID_RECIPIENT);
+
+            for (int i = 0; i < 10; i++) {
+                sender.send("invalid", "Hola");
+            }
+
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+            assertThat(circuitBreaker.getFailureRate()).isZero();
+        }
+
+        @Test
+        @DisplayName("Un Error en la sonda half-open debe reabrir el circuito sin dejarlo bloqueado")
+        void errorInHalfOpenProbeShouldReopenCircuit() {
+            when(mockSender.send(anyString(), anyString()))
+                    .thenReturn(NotificationResult.failure("smtp down"), NotificationResult.failure("smtp down"),
+                            NotificationResult.failure("smtp down"), NotificationResult.failure("smtp down"))
+                    .thenThrow(new StackOverflowError())
+                    .thenReturn(NotificationResult.success("Sent"));
+            for (int i = 0; i < 4; i++) {
+                sender.send("test@test.com", "Hola");
+            }
+            clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+            assertThatThrownBy(() -> sender.send("test@test.com", "Hola")).isInstanceOf(StackOverflowError.class);
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.OPEN);
+
+            clock.addAndGet(Duration.ofSeconds(6).toNanos());
+            assertThat(sender.send("test@test.com", "Hola").isSuccess()).isTrue();
+            assertThat(sender.send("test@test.com", "Hola").isSuccess()).isTrue();
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+        }
+
+        @Test
+        @DisplayName("La factory debe decorar los senders compartiendo el breaker por canal")
+        void factoryShouldDecorateSendersSharingBreakerPerChannel() {
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            factory.addDecorator(new CircuitBreakerRegistry(CircuitBreakerConfig.defaults()).decorator());
+
+            NotificationSender first = factory.createSender("email");
+            NotificationSender second = factory.createSender("EMAIL");
+
+            assertThat(first).isInstanceOf(CircuitBreakerNotificationSender.class);
+            assertThat(((CircuitBreakerNotificationSender) first).getCircuitBreaker())
+                    .isSameAs(((CircuitBreakerNotificationSender) second).getCircuitBreaker());
+            assertThat(first.send("test@test.com", "Hola").isSuccess()).isTrue();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 23: Tests para las métricas de latencia y contadores por canal
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.23 - NotificationMetrics (Histogramas de latencia y contadores)")
+    class MetricsTests {
+
+        @Mock
+        private NotificationLogger mockLogger;
+
+        @Test
+        @DisplayName("Debe contar éxitos y fallos por canal")
+        void shouldCountSuccessesAndFailuresPerChannel() {
+            NotificationService service = new NotificationService(new NotificationSenderFactory(), mockLogger);
+
+            service.sendNotification("EMAIL", "test@test.com", "Hola");
+            service.sendNotification("email", "invalid", "Hola");
+            service.sendNotification("SMS", "+1234567890", "Hola");
+
+            ChannelMetricsSnapshot email = service.getMetrics().snapshot("EMAIL");
+            assertThat(email.getSuccessCount()).isEqualTo(1);
+            assertThat(email.getFailureCount()).isEqualTo(1);
+            assertThat(email.getLatency(NotificationPhase.SEND).getCount()).isEqualTo(2);
+            assertThat(email.getLatency(NotificationPhase.LOG).getCount()).isEqualTo(2);
+            assertThat(service.getMetrics().snapshot()).containsOnlyKeys("EMAIL", "SMS");
+        }
+
+        @Test
+        @DisplayName("El decorador debe medir las fases de validación y formato")
+        void decoratorShouldMeasureValidateAndFormatPhases() {
+            NotificationMetrics metrics = new NotificationMetrics();
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            factory.addDecorator(metrics.senderDecorator());
+            NotificationService service = new NotificationService(factory, mockLogger, metrics);
+
+            NotificationResult result = service.sendNotification("EMAIL", "test@test.com", "Hola");
+            service.sendNotification("EMAIL", "invalid", "Hola");
+
+            ChannelMetricsSnapshot email = metrics.snapshot("EMAIL");
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(email.getLatency(NotificationPhase.VALIDATE).getCount()).isEqualTo(2);
+            assertThat(email.getLatency(NotificationPhase.FORMAT).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("El decorador y el servicio deben registrar métricas bajo la misma clave")
+        void decoratorAndServiceShouldShareMetricsKey() {
+            NotificationMetrics metrics = new NotificationMetrics();
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            factory.registerSender("MAIL", new EmailNotificationSender());
+            factory.addDecorator(metrics.senderDecorator());
+            NotificationService service = new NotificationService(factory, mockLogger, metrics);
+
+            service.sendNotification("MAIL", "test@test.com", "Hola");
+            NotificationResult invalid = service.sendNotification("MAIL", "invalid", "Hola");
+
+            ChannelMetricsSnapshot email = metrics.snapshot("EMAIL");
+            assertThat(invalid).isSameAs(NotificationResult.INVALID_RECIPIENT);
+            assertThat(metrics.snapshot()).containsOnlyKeys("EMAIL");
+            assertThat(email.getSuccessCount()).isEqualTo(1);
+            assertThat(email.getFailureCount()).isEqualTo(1);
+            assertThat(email.getLatency(NotificationPhase.VALIDATE).getCount()).isEqualTo(2);
+            assertThat(email.getLatency(NotificationPhase.SEND).getCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("El decorador debe validar y formatear una sola vez por envío")
+        void decoratorShouldValidateAndFormatOncePerSend() {
+            NotificationMetrics metrics = new NotificationMetrics();
+            AtomicInteger validations = new AtomicInteger();
+            NotificationSender email = metrics.senderDecorator().apply(new EmailNotificationSender() {
+                @Override
+                public boolean validateRecipient(String recipient) {
+                    validations.incrementAndGet();
+                    return super.validateRecipient(recipient);
+                }
+            });
+            NotificationSender custom = mock(NotificationSender.class);
+            when(custom.getType()).thenReturn("FAX");
+            when(custom.send("123", "Hola")).thenReturn(NotificationResult.success("Sent"));
+
+            assertThat(email.send("test@test.com", "Hola").isSuccess()).isTrue();
+            NotificationSender decoratedCustom = metrics.senderDecorator().apply(custom);
+            assertThat(decoratedCustom.send("123", "Hola").isSuccess()).isTrue();
+
+            assertThat(validations.get()).isEqualTo(1);
+            assertThat(metrics.snapshot("EMAIL").getLatency(NotificationPhase.DELIVER).getCount()).isEqualTo(1);
+            assertThat(metrics.snapshot("FAX").getLatency(NotificationPhase.DELIVER).getCount()).isEqualTo(1);
+            verify(custom, never()).validateRecipient(anyString());
+            verify(custom, never()).formatMessage(anyString());
+        }
+
+        @Test
+        @DisplayName("Los percentiles deben respetar la precisión del histograma")
+        void percentilesShouldRespectHistogramPrecision() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long nanos = 1; nanos <= 100_000; nanos++) {
+                histogram.recordNanos(nanos);
+            }
+
+            LatencySnapshot snapshot = histogram.snapshot();
+
+            assertThat(snapshot.getCount()).isEqualTo(100_000);
+            assertThat(snapshot.getP50Nanos()).isCloseTo(50_000L, withinPercentage(4));
+            assertThat(snapshot.getP99Nanos()).isCloseTo(99_000L, withinPercentage(4));
+            assertThat(snapshot.getP999Nanos()).isLessThanOrEqualTo(snapshot.getMaxNanos());
+            assertThat(snapshot.getMaxNanos()).isEqualTo(100_000);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 24: Tests para el registro copy-on-write con ids de canal
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.24 - NotificationSenderFactory (Registro copy-on-write e ids de canal)")
+    class SenderRegistryTests {
+
+        @Mock
+        private NotificationLogger mockLogger;
+
+        @Test
+        @DisplayName("Debe reutilizar las instancias de senders sin estado")
+        void shouldReuseStatelessSenderInstances() {
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+
+            assertThat(factory.createSender("email")).isSameAs(factory.createSender("EMAIL"));
+        }
+
+        @Test
+        @DisplayName("Debe resolver el canal una vez y despachar por id")
+        void shouldResolveChannelOnceAndDispatchById() {
+            NotificationService service = new NotificationService(new NotificationSenderFactory(), mockLogger);
+
+            int smsChannel = service.resolveChannel("sms");
+            NotificationResult result = service.sendNotification(smsChannel, "+1234567890", "Hola");
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(service.sendNotification(99, "+1234567890", "Hola").isSuccess()).isFalse();
+            verify(mockLogger, times(2)).log(any(NotificationLogEntry.class));
+        }
+
+        @Test
+        @DisplayName("Reemplazar un sender debe conservar el id del canal")
+        void replacingSenderShouldKeepChannelId() {
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            int emailChannel = factory.channelId("EMAIL");
+
+            factory.registerSender("email", new EmailNotificationSender(recipient -> true));
+
+            assertThat(factory.channelId("EMAIL")).isEqualTo(emailChannel);
+            assertThat(factory.createSender(emailChannel).validateRecipient("cualquiera")).isTrue();
+        }
+
+        @Test
+        @DisplayName("Los registros concurrentes no deben perderse")
+        void concurrentRegistrationsShouldNotBeLost() throws Exception {
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++) {
+                    int prefix = thread;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 250; i++) {
+                            factory.registerSender("CANAL_" + prefix + "_" + i, SmsNotificationSender::new);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            for (int thread = 0; thread < 4; thread++) {
+                for (int i = 0; i < 250; i++) {
+                    assertThat(factory.createSender("canal_" + thread + "_" + i))
+                            .isInstanceOf(SmsNotificationSender.class);
+                }
+            }
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 25: Tests para los resultados con mensaje diferido
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.25 - NotificationResult (Renderizado diferido y flyweights)")
+    class LazyResultTests {
+
+        @Test
+        @DisplayName("El mensaje debe renderizarse solo al pedirlo y una única vez")
+        void messageShouldBeRenderedOnDemandAndOnlyOnce() {
+            AtomicInteger renders = new AtomicInteger();
+            NotificationResult result = NotificationResult.success((recipient, formatted) -> {
+                renders.incrementAndGet();
+                return "sms to " + recipient + ": " + formatted + " sent!";
+            }, "+1234567890", "Hola");
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(renders.get()).isZero();
+            assertThat(result.getMessage()).isEqualTo("sms to +1234567890: Hola sent!");
+            assertThat(result.getMessage()).isEqualTo("sms to +1234567890: Hola sent!");
+            assertThat(renders.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Los senders deben conservar el mensaje de éxito")
+        void sendersShouldKeepSuccessMessage() {
+            NotificationResult result = new SmsNotificationSender().send("+1234567890", "Hola");
+
+            assertThat(result.getMessage()).isEqualTo("sms to +1234567890: Hola sent!");
+        }
+
+        @Test
+        @DisplayName("Los destinatarios inválidos deben devolver la instancia compartida")
+        void invalidRecipientsShouldReturnSharedInstance() {
+            assertThat(new EmailNotificationSender().send("invalid", "Hola"))
+                    .isSameAs(NotificationResult.INVALID_RECIPIENT);
+            assertThat(new SmsNotificationSender().send("123", "Hola"))
+                    .isSameAs(NotificationResult.INVALID_RECIPIENT);
+            assertThat(NotificationResult.INVALID_RECIPIENT.isSuccess()).isFalse();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 26: Tests para el fan-out multicanal
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.26 - NotificationService.fanOut (Fan-out multicanal)")
+    class FanOutTests {
+
+        private final List<NotificationRequest> requests = List.of(
+                NotificationRequest.of("EMAIL", "test@test.com", "Alerta"),
+                NotificationRequest.of("SMS", "+1234567890", "Alerta"),
+                NotificationRequest.of("PUSH", "invalid", "Alerta"));
+
+        private NotificationService service;
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUp() {
+            service = new NotificationService(new NotificationSenderFactory(), new NotificationLogger());
+            executor = Executors.newFixedThreadPool(3);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        @DisplayName("First-success debe completarse con el primer canal exitoso")
+        void firstSuccessShouldCompleteWithFirstSuccessfulChannel() throws Exception {
+            FanOutResult result = service.fanOut(requests, FanOutPolicy.firstSuccess(), executor)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getSuccessCount()).isGreaterThanOrEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("All-success debe fallar si algún canal falla")
+        void allSuccessShouldFailWhenAnyChannelFails() throws Exception {
+            FanOutResult result = service.fanOut(requests, FanOutPolicy.allSuccess(), executor)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getResults()).hasSize(3);
+            assertThat(result.getResults().get(2).isSuccess()).isFalse();
+        }
+
+        @Test
+        @DisplayName("El quorum debe esperar el número de éxitos requerido")
+        void quorumShouldWaitForRequiredSuccesses() throws Exception {
+            FanOutResult reached = service.fanOut(requests, FanOutPolicy.quorum(2), executor)
+                    .get(5, TimeUnit.SECONDS);
+            FanOutResult unreachable = service.fanOut(requests, FanOutPolicy.quorum(3), executor)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(reached.isSuccess()).isTrue();
+            assertThat(reached.getSuccessCount()).isEqualTo(2);
+            assertThat(unreachable.isSuccess()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Los canales en cola deben omitirse tras decidir el resultado")
+        void queuedChannelsShouldBeSkippedOnceDecided() throws Exception {
+            List<Runnable> queued = new ArrayList<>();
+            CompletableFuture<FanOutResult> future = service.fanOut(requests, FanOutPolicy.firstSuccess(),
+                    queued::add);
+
+            queued.get(0).run();
+            queued.get(1).run();
+            queued.get(2).run();
+
+            FanOutResult result = future.get(5, TimeUnit.SECONDS);
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getResults().get(0).isSuccess()).isTrue();
+            assertThat(result.getResults().subList(1, 3)).containsOnlyNulls();
+        }
+
+        @Test
+        @DisplayName("Debe conservar un resultado por petición aunque compartan canal")
+        void shouldKeepOneResultPerRequestOnSameChannel() throws Exception {
+            List<NotificationRequest> sameChannel = List.of(
+                    NotificationRequest.of("EMAIL", "invalid", "Alerta"),
+                    NotificationRequest.of("EMAIL", "test@test.com", "Alerta"));
+
+            FanOutResult result = service.fanOut(sameChannel, FanOutPolicy.quorum(1), Runnable::run)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getResults()).hasSize(2);
+            assertThat(result.getResults().get(0).isSuccess()).isFalse();
+            assertThat(result.getResults().get(1).isSuccess()).isTrue();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 27: Tests para el envío masivo en streaming desde ficheros
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.27 - BulkSendPipeline (Envío masivo en streaming)")
+    class BulkSendTests {
+
+        @TempDir
+        Path tempDir;
+
+        private NotificationService service;
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUp() {
+            service = new NotificationService(new NotificationSenderFactory(), new NotificationLogger());
+            executor = Executors.newFixedThreadPool(2);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        @DisplayName("Debe enviar cada registro CSV y escribir un resultado por línea")
+        void shouldSendEachCsvRecordAndWriteOneResultPerLine() throws Exception {
+            Path input = tempDir.resolve("campaign.csv");
+            Files.writeString(input, "type,recipient,name\n"
+                    + "EMAIL,test@test.com,Ana\n"
+                    + "SMS,+1234567890,\"Luis, el \"\"grande\"\"\"\n"
+                    + "PUSH,invalid,Eva\n"
+                    + "SMS,+1234567890\n");
+            Path output = tempDir.resolve("results.csv");
+            BulkSendPipeline pipeline = new BulkSendPipeline(service, executor, 2);
+
+            BulkSendReport report = pipeline.run(input, BulkRecordFormat.CSV,
+                    MessageTemplate.compile("Hola {{name}}", Escapers.NONE), output);
+
+            assertThat(report.getSentCount()).isEqualTo(2);
+            assertThat(report.getFailedCount()).isEqualTo(1);
+            assertThat(report.getMalformedCount()).isEqualTo(1);
+            List<String> lines = Files.readAllLines(output);
+            assertThat(lines).hasSize(5);
+            assertThat(lines).anyMatch(line -> line.startsWith("3,SMS,+1234567890,SENT,")
+                    && line.contains("Hola Luis, el \"\"grande\"\""));
+            assertThat(lines).anyMatch(line -> line.startsWith("5,,,MALFORMED,"));
+        }
+
+        @Test
+        @DisplayName("Debe leer registros JSON lines con escapes")
+        void shouldReadJsonLinesRecordsWithEscapes() throws Exception {
+            Path input = tempDir.resolve("campaign.jsonl");
+            Files.writeString(input, "{\"type\": \"EMAIL\", \"recipient\": \"test@test.com\", "
+                    + "\"message\": \"Hola\\nJos\\u00e9\"}\n"
+                    + "esto no es json\n");
+
+            try (BulkRecordReader reader = new BulkRecordReader(input, BulkRecordFormat.JSON_LINES)) {
+                BulkRecord first = reader.next();
+                BulkRecord second = reader.next();
+
+                assertThat(first.getFields()).containsEntry("message", "Hola\nJosé");
+                assertThat(second.isMalformed()).isTrue();
+                assertThat(reader.next()).isNull();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe marcar como mal formadas las líneas que superan la longitud máxima")
+        void shouldReportOverlongLinesAsMalformed() throws Exception {
+            Path input = tempDir.resolve("overlong.csv");
+            Files.writeString(input, "type,recipient\r\n"
+                    + "SMS," + "9".repeat(100) + "\r\n"
+                    + "SMS,+1234567890\r\n");
+
+            try (BulkRecordReader reader = new BulkRecordReader(input, BulkRecordFormat.CSV, 16, 32)) {
+                BulkRecord overlong = reader.next();
+                BulkRecord valid = reader.next();
+
+                assertThat(overlong.isMalformed()).isTrue();
+                assertThat(overlong.getLineNumber()).isEqualTo(2);
+                assertThat(valid.getRecipient()).isEqualTo("+1234567890");
+                assertThat(valid.getLineNumber()).isEqualTo(3);
+                assertThat(reader.next()).isNull();
+            }
+        }
+
+        @Test
+        @DisplayName("No debe superar el máximo de envíos en vuelo")
+        void shouldNotExceedMaxInFlight() throws Exception {
+            StringBuilder csv = new StringBuilder("type,recipient,message\n");
+            for (int i = 0; i < 200; i++) {
+                csv.append("SMS,+1234567890,Hola ").append(i).append('\n');
+            }
+            Path input = tempDir.resolve("large.csv");
+            Files.writeString(input, csv.toString());
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxObserved = new AtomicInteger();
+            NotificationDispatcher slowDispatcher = (type, recipient, message) -> {
+                maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    return service.sendNotification(type, recipient, message);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            };
+
+            BulkSendReport report = new BulkSendPipeline(slowDispatcher, executor, 2)
+                    .run(input, BulkRecordFormat.CSV, tempDir.resolve("out.csv"));
+
+            assertThat(report.getSentCount()).isEqualTo(200);
+            assertThat(maxObserved.get()).isLessThanOrEqualTo(2);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 28: Tests para el transporte SMTP con pool y pipelining
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.28 - PooledSmtpTransport (Pool de conexiones contra servidor SMTP local)")
+    class SmtpTransportTests {
+
+        private FakeSmtpServer server;
+        private PooledSmtpTransport transport;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            server = new FakeSmtpServer(true, recipient -> recipient.startsWith("nadie"), 100);
+            transport = new PooledSmtpTransport(server.getHost(), server.getPort(), 2);
+        }
+
+        @AfterEach
+        void tearDown() throws Exception {
+            transport.close();
+            server.close();
+        }
+
+        @Test
+        @DisplayName("El sender de email debe entregar a través del transporte")
+        void emailSenderShouldDeliverThroughTransport() {
+            EmailNotificationSender sender = new EmailNotificationSender(RecipientValidators.EMAIL,
+                    EmailNotificationSender.DEFAULT_TEMPLATE, transport, "noreply@test.com");
+
+            NotificationResult result = sender.send("test@test.com", "Hola");
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(server.getMessages()).hasSize(1);
+            assertThat(server.getMessages().get(0).getRecipients()).containsExactly("test@test.com");
+            assertThat(server.getMessages().get(0).getBody()).contains("<p>Hola</p>");
+        }
+
+        @Test
+        @DisplayName("Debe informar por destinatario en envíos con varios RCPT")
+        void shouldReportPerRecipientWithMultipleRcpt() throws Exception {
+            DeliveryReport report = transport.deliver(new MailMessage("noreply@test.com",
+                    List.of("uno@test.com", "nadie@test.com", "dos@test.com"), "Hola"));
+
+            assertThat(report.isAccepted()).isTrue();
+            assertThat(report.isAccepted("uno@test.com")).isTrue();
+            assertThat(report.isAccepted("nadie@test.com")).isFalse();
+            assertThat(server.getMessages().get(0).getRecipients()).containsExactly("uno@test.com", "dos@test.com");
+        }
+
+        @Test
+        @DisplayName("Debe reutilizar las conexiones del pool")
+        void shouldReusePooledConnections() throws Exception {
+            for (int i = 0; i < 50; i++) {
+                transport.deliver(new MailMessage("noreply@test.com", List.of("test@test.com"), "Hola " + i));
+            }
+
+            assertThat(server.getReceivedCount()).isEqualTo(50);
+            assertThat(server.getConnectionCount()).isEqualTo(1);
+            assertThat(transport.getPool().getIdleCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Debe reconectar cuando las conexiones inactivas se han cerrado")
+        void shouldReconnectWhenIdleConnectionsWereClosed() throws Exception {
+            transport.deliver(new MailMessage("noreply@test.com", List.of("test@test.com"), "Hola"));
+            server.dropConnections();
+
+            DeliveryReport report = transport.deliver(new MailMessage("noreply@test.com",
+                    List.of("test@test.com"), "Otra vez"));
+
+            assertThat(report.isAccepted()).isTrue();
+            assertThat(server.getConnectionCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar direcciones con saltos de línea")
+        void shouldRejectAddressesWithLineBreaks() {
+            assertThatThrownBy(() -> new MailMessage("noreply@test.com",
+                    List.of("test@test.com>\r\nRCPT TO:<otro@test.com"), "Hola"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 29: Tests para el envío push multicast por lotes
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.29 - PushMulticastBatcher (Lotes multicast para push)")
+    class PushMulticastTests {
+
+        private StubPushProviderClient providerClient;
+
+        @BeforeEach
+        void setUp() {
+            providerClient = new StubPushProviderClient(token -> token.startsWith("caducado"));
+        }
+
+        @Test
+        @DisplayName("Debe agrupar en una llamada los tokens que comparten payload")
+        void shouldGroupTokensSharingPayloadIntoOneCall() throws Exception {
+            try (PushMulticastBatcher batcher = new PushMulticastBatcher(providerClient, 3, Duration.ofSeconds(10))) {
+                PushNotificationSender sender = new PushNotificationSender(token -> true,
+                        PushNotificationSender.DEFAULT_TEMPLATE, batcher);
+
+                CompletableFuture<NotificationResult> first = sender.sendAsync("token-1", "Oferta");
+                CompletableFuture<NotificationResult> second = sender.sendAsync("caducado-2", "Oferta");
+                CompletableFuture<NotificationResult> third = sender.sendAsync("token-3", "Oferta");
+
+                assertThat(first.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+                assertThat(second.get(5, TimeUnit.SECONDS).getMessage()).contains("invalid recipient");
+                assertThat(third.get(5, TimeUnit.SECONDS).getMessage()).isEqualTo("push to device token-3: Oferta sent");
+                assertThat(providerClient.getBatchSizes()).containsExactly(3);
+            }
+        }
+
+        @Test
+        @DisplayName("Debe enviar el lote incompleto al vencer el tiempo máximo")
+        void shouldFlushPartialBatchWhenDelayExpires() throws Exception {
+            try (PushMulticastBatcher batcher = new PushMulticastBatcher(providerClient, 500, Duration.ofMillis(20))) {
+                CompletableFuture<PushTokenOutcome> outcome = batcher.submit("token-1", "Hola");
+                CompletableFuture<PushTokenOutcome> other = batcher.submit("token-2", "Adiós");
+
+                assertThat(outcome.get(5, TimeUnit.SECONDS).isDelivered()).isTrue();
+                assertThat(other.get(5, TimeUnit.SECONDS).isDelivered()).isTrue();
+                assertThat(providerClient.getBatchSizes()).containsExactlyInAnyOrder(1, 1);
+                assertThat(batcher.getOpenBatchCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Un fallo del proveedor debe propagarse a cada token del lote")
+        void providerFailureShouldPropagateToEveryToken() throws Exception {
+            PushProviderClient failingClient = (payload, tokens) -> {
+                throw new IOException("503 service unavailable");
+            };
+            try (PushMulticastBatcher batcher = new PushMulticastBatcher(failingClient, 2, Duration.ofSeconds(10))) {
+                PushNotificationSender sender = new PushNotificationSender(token -> true,
+                        PushNotificationSender.DEFAULT_TEMPLATE, batcher);
+
+                CompletableFuture<NotificationResult> first = sender.sendAsync("token-1", "Hola");
+                CompletableFuture<NotificationResult> second = sender.sendAsync("token-2", "Hola");
+
+                assertThat(first.get(5, TimeUnit.SECONDS).getMessage()).contains("push failed", "503");
+                assertThat(second.get(5, TimeUnit.SECONDS).isSuccess()).isFalse();
+            }
+        }
+
+        @Test
+        @DisplayName("Tras cerrar debe rechazar los envíos sin dejar lotes huérfanos")
+        void shouldRejectSubmitsAfterClose() throws Exception {
+            PushMulticastBatcher batcher = new PushMulticastBatcher(providerClient, 10, Duration.ofSeconds(10));
+            batcher.close();
+
+            PushTokenOutcome outcome = batcher.submit("token-1", "Hola").get(5, TimeUnit.SECONDS);
+
+            assertThat(outcome.isDelivered()).isFalse();
+            assertThat(batcher.getOpenBatchCount()).isZero();
+            assertThat(providerClient.getCallCount()).isZero();
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 30: Tests para el outbox durable con group commit
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.30 - NotificationOutbox (Outbox durable con group commit)")
+    class OutboxTests {
+
+        @Mock
+        private NotificationDispatcher mockDelegate;
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("Debe reenviar tras reiniciar las entradas no confirmadas")
+        void shouldResendUnacknowledgedEntriesAfterRestart() throws Exception {
+            try (NotificationOutbox outbox = new NotificationOutbox(tempDir)) {
+                outbox.append(NotificationRequest.of("EMAIL", "test@test.com", "Hola"));
+                outbox.append(NotificationRequest.of("SMS", "+1234567890", "Adiós"));
+                outbox.acknowledge(outbox.poll(1, TimeUnit.SECONDS).getSequence());
+            }
+
+            try (NotificationOutbox recovered = new NotificationOutbox(tempDir)) {
+                OutboxEntry entry = recovered.poll(1, TimeUnit.SECONDS);
+
+                assertThat(recovered.getRecoveredCount()).isEqualTo(1);
+                assertThat(entry.getRequest().getNotificationType()).isEqualTo("SMS");
+                assertThat(entry.getRequest().getMessage()).isEqualTo("Adiós");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe descartar un registro final incompleto")
+        void shouldDiscardTornTailRecord() throws Exception {
+            try (NotificationOutbox outbox = new NotificationOutbox(tempDir)) {
+                outbox.append(NotificationRequest.of("EMAIL", "test@test.com", "Hola"));
+            }
+            Files.write(tempDir.resolve(NotificationOutbox.LOG_FILE), new byte[]{42, 0, 0, 0, 1, 2},
+                    StandardOpenOption.APPEND);
+
+            try (NotificationOutbox recovered = new NotificationOutbox(tempDir)) {
+                assertThat(recovered.getRecoveredCount()).isEqualTo(1);
+                recovered.append(NotificationRequest.of("PUSH", "device-token-123", "Nuevo"));
+            }
+            try (NotificationOutbox reopened = new NotificationOutbox(tempDir)) {
+                assertThat(reopened.getRecoveredCount()).isEqualTo(2);
+            }
+        }
+
+        @Test
+        @DisplayName("Los escritores concurrentes deben compartir fsync")
+        void concurrentWritersShouldShareFsync() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try (NotificationOutbox outbox = new NotificationOutbox(tempDir)) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            outbox.append(NotificationRequest.of("SMS", "+1234567890", "Hola " + i));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                assertThat(outbox.getPendingCount()).isEqualTo(800);
+                assertThat(outbox.getForceCount()).isLessThanOrEqualTo(800);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("El dispatcher debe aceptar en el outbox y entregar al delegado")
+        void dispatcherShouldAcceptIntoOutboxAndRelayToDelegate() throws Exception {
+            when(mockDelegate.sendNotification("EMAIL", "test@test.com", "Hola"))
+                    .thenReturn(NotificationResult.success("Sent"));
+            NotificationOutbox outbox = new NotificationOutbox(tempDir);
+
+            try (OutboxNotificationDispatcher dispatcher = new OutboxNotificationDispatcher(outbox, mockDelegate)) {
+                NotificationResult result = dispatcher.sendNotification("EMAIL", "test@test.com", "Hola");
+
+                assertThat(result.isSuccess()).isTrue();
+                verify(mockDelegate, timeout(5000)).sendNotification("EMAIL", "test@test.com", "Hola");
+            }
+        }
+
+        @Test
+        @DisplayName("El relay debe reintentar los fallos transitorios en lugar de confirmarlos")
+        void relayShouldRedeliverTransientFailures() throws Exception {
+            when(mockDelegate.sendNotification("SMS", "+1234567890", "Código"))
+                    .thenReturn(NotificationResult.failure("smtp timeout"), NotificationResult.failure("smtp timeout"),
+                            NotificationResult.success("Sent"));
+            NotificationOutbox outbox = new NotificationOutbox(tempDir);
+            RetryPolicy policy = RetryPolicy.exponential(Integer.MAX_VALUE, Duration.ofMillis(1), Duration.ofMillis(5));
+
+            try (OutboxNotificationDispatcher dispatcher = new OutboxNotificationDispatcher(outbox, mockDelegate,
+                    policy)) {
+                dispatcher.sendNotification("SMS", "+1234567890", "Código");
+
+                verify(mockDelegate, timeout(5000).times(3)).sendNotification("SMS", "+1234567890", "Código");
+                assertThat(dispatcher.getRedeliveryCount()).isEqualTo(2);
+            }
+        }
+
+        @Test
+        @DisplayName("Debe confirmar como dead-letter los fallos permanentes y rechazar tipos no registrados")
+        void shouldDeadLetterPermanentFailuresAndRejectUnregisteredTypes() throws Exception {
+            when(mockDelegate.sendNotification("SMS", "123", "Código")).thenReturn(NotificationResult.INVALID_RECIPIENT);
+            NotificationSenderFactory factory = new NotificationSenderFactory();
+            RetryPolicy policy = RetryPolicy.exponential(5, Duration.ofMillis(1), Duration.ofMillis(5));
+
+            try (OutboxNotificationDispatcher dispatcher = new OutboxNotificationDispatcher(
+                    new NotificationOutbox(tempDir), mockDelegate, policy, factory::isRegistered)) {
+                NotificationResult unregistered = dispatcher.sendNotification("FAX", "123", "Código");
+                dispatcher.sendNotification("SMS", "123", "Código");
+
+                verify(mockDelegate, timeout(5000)).sendNotification("SMS", "123", "Código");
+                assertThat(unregistered).isSameAs(NotificationResult.UNKNOWN);
+                verify(mockDelegate, never()).sendNotification(eq("FAX"), anyString(), anyString());
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (dispatcher.getDeadLetteredCount() == 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(5);
+                }
+                assertThat(dispatcher.getDeadLetteredCount()).isEqualTo(1);
+                assertThat(dispatcher.getRedeliveryCount()).isZero();
+            }
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 31: Tests para los workers particionados por destinatario
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.31 - ShardedNotificationService (Workers por destinatario)")
+    class ShardedServiceTests {
+
+        @Test
+        @DisplayName("Debe conservar el orden de envío por destinatario")
+        void shouldPreserveOrderPerRecipient() throws Exception {
+            Map<String, List<String>> delivered = new ConcurrentHashMap<>();
+            NotificationDispatcher recordingDispatcher = (type, recipient, message) -> {
+                delivered.computeIfAbsent(recipient, key -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(message);
+                return NotificationResult.success("Sent");
+            };
+
+            try (ShardedNotificationService service = new ShardedNotificationService(recordingDispatcher, 4, 64)) {
+                List<CompletableFuture<NotificationResult>> futures = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    futures.add(service.sendNotificationAsync("PUSH", "device-a", "pedido " + i));
+                    futures.add(service.sendNotificationAsync("PUSH", "device-b", "pedido " + i));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            }
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                expected.add("pedido " + i);
+            }
+            assertThat(delivered.get("device-a")).containsExactlyElementsOf(expected);
+            assertThat(delivered.get("device-b")).containsExactlyElementsOf(expected);
+        }
+
+        @Test
+        @DisplayName("Un mismo destinatario siempre debe ir al mismo shard")
+        void sameRecipientShouldAlwaysMapToSameShard() {
+            try (ShardedNotificationService service = new ShardedNotificationService(
+                    (type, recipient, message) -> NotificationResult.success("Sent"), 8, 16)) {
+                int shard = service.shardFor("+1234567890");
+
+                assertThat(service.shardFor("+1234567890")).isEqualTo(shard);
+                assertThat(shard).isBetween(0, 7);
+                assertThat(service.getQueueDepths()).hasSize(8);
+            }
+        }
+
+        @Test
+        @DisplayName("Debe exponer la profundidad de cola del shard caliente")
+        void shouldExposeQueueDepthOfHotShard() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            NotificationDispatcher blockingDispatcher = (type, recipient, message) -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return NotificationResult.success("Sent");
+            };
+
+            try (ShardedNotificationService service = new ShardedNotificationService(blockingDispatcher, 4, 64)) {
+                int hotShard = service.shardFor("hot@test.com");
+                for (int i = 0; i < 10; i++) {
+                    service.sendNotificationAsync("EMAIL", "hot@test.com", "Hola " + i);
+                }
+
+                assertThat(service.getPeakQueueDepth(hotShard)).isGreaterThanOrEqualTo(9);
+                release.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("Tras cerrar debe rechazar los envíos nuevos")
+        void shouldRejectSendsAfterClose() {
+            ShardedNotificationService service = new ShardedNotificationService(
+                    (type, recipient, message) -> NotificationResult.success("Sent"), 2, 4);
+            service.close();
+
+            assertThatThrownBy(() -> service.sendNotificationAsync("SMS", "+1234567890", "Hola"))
+                    .isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+
+    //// ═══════════════════════════════════════════════════════════════════════════
+    //// PARTE 32: Tests para los envíos programados en timing wheel jerárquico
+    //// ═══════════════════════════════════════════════════════════════════════════
+
+    @Nested
+    @DisplayName("1.32 - ScheduledNotificationService (Envíos programados en timing wheel jerárquico)")
+    class ScheduledNotificationServiceTests {
+        private static final long START_MILLIS = 1_700_000_000_000L;
+
+        private AtomicLong clock;
+        private List<String> delivered;
+        private NotificationDispatcher recordingDispatcher;
+
+        @BeforeEach
+        void setUp() {
+            clock = new AtomicLong(START_MILLIS);
+            delivered = Collections.synchronizedList(new ArrayList<>());
+            recordingDispatcher = (type, recipient, message) -> {
+                delivered.add(message);
+                return NotificationResult.success("Sent");
+            };
+        }
+
+        @Test
+        @DisplayName("Debe enviar en un solo lote los mensajes que vencen en el mismo tick")
+        void shouldFireDueMessagesOfSameTickAsOneBatch() throws Exception {
+            try (ScheduledNotificationService service = new ScheduledNotificationService(recordingDispatcher,
+                    Duration.ofMillis(10), 64, null, Runnable::run, clock::get)) {
+                service.schedule("EMAIL", "a@test.com", "primero", Instant.ofEpochMilli(START_MILLIS + 21));
+                service.schedule("EMAIL", "b@test.com", "segundo", Instant.ofEpochMilli(START_MILLIS + 25));
+                service.schedule("SMS", "+1234567890", "mañana", Instant.ofEpochMilli(START_MILLIS + 86_400_000));
+
+                clock.set(START_MILLIS + 20);
+                service.fireDue();
+                assertThat(delivered).isEmpty();
+
+                clock.set(START_MILLIS + 30);
+                service.fireDue();
+
+                assertThat(delivered).containsExactlyInAnyOrder("primero", "segundo");
+                assertThat(service.getBatchCount()).isEqualTo(1);
+                assertThat(service.getPendingCount()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("No debe enviar una notificación cancelada")
+        void shouldNotSendCancelledNotification() throws Exception {
+            try (ScheduledNotificationService service = new ScheduledNotificationService(recordingDispatcher,
+                    Duration.ofMillis(10), 64, null, Runnable::run, clock::get)) {
+                ScheduledNotification notification = service.schedule("PUSH", "device-token", "recordatorio",
+                        Instant.ofEpochMilli(START_MILLIS + 5_000));
+
+                assertThat(service.cancel(notification)).isTrue();
+                assertThat(service.cancel(notification)).isFalse();
+
+                clock.set(START_MILLIS + 10_000);
+                service.fireDue();
+
+                assertThat(delivered).isEmpty();
+                assertThat(notification.isCancelled()).isTrue();
+                assertThat(service.getPendingCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe purgar del timing wheel las notificaciones canceladas")
+        void shouldPurgeCancelledNotificationsFromWheel() throws Exception {
+            try (ScheduledNotificationService service = new ScheduledNotificationService(recordingDispatcher,
+                    Duration.ofMillis(10), 64, null, Runnable::run, clock::get)) {
+                List<ScheduledNotification> scheduled = new ArrayList<>();
+                for (int i = 0; i < 3_000; i++) {
+                    scheduled.add(service.schedule("EMAIL", "a@test.com", "m" + i,
+                            Instant.ofEpochMilli(START_MILLIS + 60_000 + i)));
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    service.cancel(scheduled.get(i));
+                }
+
+                service.fireDue();
+                assertThat(service.getScheduledCount()).isEqualTo(1_000);
+
+                clock.set(START_MILLIS + 120_000);
+                service.fireDue();
+
+                assertThat(delivered).hasSize(1_000);
+                assertThat(service.getScheduledCount()).isZero();
+                assertThat(service.getFailedCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Debe recuperar los envíos pendientes tras reiniciar")
+        void shouldRecoverPendingNotificationsAfterRestart(@TempDir Path directory) throws Exception {
+            try (ScheduledNotificationService service = new ScheduledNotificationService(recordingDispatcher,
+                    Duration.ofMillis(10), 64, new ScheduledNotificationStore(directory), Runnable::run, clock::get)) {
+                service.schedule("EMAIL", "a@test.com", "enviado", Instant.ofEpochMilli(START_MILLIS + 100));
+                service.schedule("EMAIL", "b@test.com", "pendiente", Instant.ofEpochMilli(START_MILLIS + 60_000));
+                ScheduledNotification cancelled = service.schedule("EMAIL", "c@test.com", "cancelado",
+                        Instant.ofEpochMilli(START_MILLIS + 60_000));
+                service.cancel(cancelled);
+
+                clock.set(START_MILLIS + 1_000);
+                service.fireDue();
+            }
+            assertThat(delivered).containsExactly("enviado");
+
+            try (ScheduledNotificationService restarted = new ScheduledNotificationService(recordingDispatcher,
+                    Duration.ofMillis(10), 64, new ScheduledNotificationStore(directory), Runnable::run, clock::get)) {
+                assertThat(restarted.getPendingCount()).isEqualTo(1);
+
+                clock.set(START_MILLIS + 61_000);
+                restarted.fireDue();
+
+                assertThat(delivered).containsExactly("enviado", "pendiente");
+            }
+        }
+
+        @Test
+        @DisplayName("Debe entregar los lotes vencidos sin retener el lock del timing wheel")
+        void shouldDeliverDueBatchesOutsideWheelLock() throws Exception {
+            AtomicReference<ScheduledNotificationService> serviceRef = new AtomicReference<>();
+            NotificationDispatcher reschedulingDispatcher = (type, recipient, message) -> {
+                delivered.add(message);
+                if (message.equals("primero")) {
+                    CompletableFuture.runAsync(() -> serviceRef.get().schedule("EMAIL", recipient, "segundo",
+                            Instant.ofEpochMilli(START_MILLIS + 5_000))).join();
+                }
+                return NotificationResult.success("Sent");
+            };
+
+            try (ScheduledNotificationService service = new ScheduledNotificationService(reschedulingDispatcher,
+                    Duration.ofMillis(10), 64, null, Runnable::run, clock::get)) {
+                serviceRef.set(service);
+                service.schedule("EMAIL", "a@test.com", "primero", Instant.ofEpochMilli(START_MILLIS + 100));
+
+                clock.set(START_MILLIS + 1_000);
+                CompletableFuture.supplyAsync(service::fireDue).get(5, TimeUnit.SECONDS);
+
+                assertThat(delivered).containsExactly("primero");
+                assertThat(service.getPendingCount()).isEqualTo(1);
+            }
+        }
+    }
 }
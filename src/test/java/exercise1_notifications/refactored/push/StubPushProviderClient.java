@@ -0,0 +1,50 @@
+package exercise1_notifications.refactored.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+public class StubPushProviderClient implements PushProviderClient {
+    private final Predicate<String> unregisteredToken;
+    private final ConcurrentLinkedQueue<Integer> batchSizes;
+    private final LongAdder deliveredCount;
+
+    public StubPushProviderClient() {
+        this(token -> false);
+    }
+
+    public StubPushProviderClient(Predicate<String> unregisteredToken) {
+        this.unregisteredToken = unregisteredToken;
+        this.batchSizes = new ConcurrentLinkedQueue<>();
+        this.deliveredCount = new LongAdder();
+    }
+
+    @Override
+    public List<PushTokenOutcome> sendMulticast(String payload, List<String> deviceTokens) {
+        batchSizes.add(deviceTokens.size());
+        List<PushTokenOutcome> outcomes = new ArrayList<>(deviceTokens.size());
+        for (String token : deviceTokens) {
+            if (unregisteredToken.test(token)) {
+                outcomes.add(PushTokenOutcome.unregistered("unregistered device token"));
+            } else {
+                deliveredCount.increment();
+                outcomes.add(PushTokenOutcome.delivered());
+            }
+        }
+        return outcomes;
+    }
+
+    public int getCallCount() {
+        return batchSizes.size();
+    }
+
+    public List<Integer> getBatchSizes() {
+        return new ArrayList<>(batchSizes);
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+}
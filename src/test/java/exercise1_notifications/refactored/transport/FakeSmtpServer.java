@@ -0,0 +1,217 @@
+package exercise1_notifications.refactored.transport;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+public class FakeSmtpServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final boolean pipelining;
+    private final Predicate<String> rejectRecipient;
+    private final int retainedMessages;
+    private final ConcurrentLinkedQueue<MailMessage> messages;
+    private final Set<Socket> clients;
+    private final AtomicInteger connectionCount;
+    private final AtomicLong receivedCount;
+    private final Thread acceptor;
+
+    public FakeSmtpServer() throws IOException {
+        this(true, recipient -> false, 10_000);
+    }
+
+    public FakeSmtpServer(boolean pipelining, Predicate<String> rejectRecipient, int retainedMessages)
+            throws IOException {
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        this.pipelining = pipelining;
+        this.rejectRecipient = rejectRecipient;
+        this.retainedMessages = retainedMessages;
+        this.messages = new ConcurrentLinkedQueue<>();
+        this.clients = ConcurrentHashMap.newKeySet();
+        this.connectionCount = new AtomicInteger();
+        this.receivedCount = new AtomicLong();
+        this.acceptor = new Thread(this::acceptLoop, "fake-smtp-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public List<MailMessage> getMessages() {
+        return Collections.unmodifiableList(new ArrayList<>(messages));
+    }
+
+    public void dropConnections() {
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                clients.add(client);
+                Thread session = new Thread(() -> serve(client), "fake-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.UTF_8))) {
+            reply(out, "220 fake-smtp ready");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                        write(out, pipelining ? "250-fake-smtp\r\n250 PIPELINING" : "250 fake-smtp");
+                        break;
+                    case "HELO":
+                    case "NOOP":
+                        write(out, "250 OK");
+                        break;
+                    case "MAIL":
+                        from = address(line);
+                        recipients.clear();
+                        write(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        String recipient = address(line);
+                        if (from == null) {
+                            write(out, "503 need MAIL first");
+                        } else if (rejectRecipient.test(recipient)) {
+                            write(out, "550 no such user " + recipient);
+                        } else {
+                            recipients.add(recipient);
+                            write(out, "250 OK");
+                        }
+                        break;
+                    case "DATA":
+                        if (recipients.isEmpty()) {
+                            write(out, "554 no valid recipients");
+                            break;
+                        }
+                        reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                        String body = readData(in);
+                        if (body == null) {
+                            return;
+                        }
+                        receive(new MailMessage(from, recipients, body));
+                        from = null;
+                        recipients.clear();
+                        write(out, "250 queued");
+                        break;
+                    case "RSET":
+                        from = null;
+                        recipients.clear();
+                        write(out, "250 OK");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 bye");
+                        return;
+                    default:
+                        write(out, "500 unknown command");
+                }
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException ignored) {
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private void receive(MailMessage message) {
+        receivedCount.incrementAndGet();
+        messages.add(message);
+        while (messages.size() > retainedMessages) {
+            messages.poll();
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder body = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return body.toString();
+            }
+            if (body.length() > 0) {
+                body.append('\n');
+            }
+            body.append(line.startsWith(".") ? line.substring(1) : line);
+        }
+        return null;
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.lastIndexOf('>');
+        if (start >= 0 && end > start) {
+            return line.substring(start + 1, end);
+        }
+        return line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void write(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        write(out, reply);
+        out.flush();
+    }
+}